@@ -0,0 +1,113 @@
+package com.binouze;
+
+import android.app.Activity;
+import androidx.preference.PreferenceManager;
+import com.binouze.bench.TCFPayloads;
+import com.unity3d.player.UnityPlayer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of the getters called by the ads and analytics code, the consent hot path.
+ * Everything but the bulk queries is expected to allocate nothing.
+ */
+@State( Scope.Benchmark )
+public class GetterBenchmark
+{
+    @Param
+    public TCFPayloads.Payload payload;
+
+    // boxed once, isVendorAutorized/isAddtlConsentAutorized take an Integer
+    private final Integer googleVendor = TCFPayloads.GOOGLE_VENDOR;
+    private final Integer unityAds     = 3234;
+
+    @Setup
+    public void setup()
+    {
+        Activity activity = new Activity();
+        UnityPlayer.currentActivity = activity;
+        TCFPayloads.fill( PreferenceManager.getDefaultSharedPreferences( activity ), payload );
+
+        GDRPHelper.prefetch( activity );
+        GDRPHelper.getSnapshot();
+    }
+
+    // -- GDRPHelper
+
+    @Benchmark
+    public boolean canShowAds()
+    {
+        return GDRPHelper.canShowAds();
+    }
+
+    @Benchmark
+    public boolean canShowPersonalizedAds()
+    {
+        return GDRPHelper.canShowPersonalizedAds();
+    }
+
+    @Benchmark
+    public boolean firebaseAdStorage()
+    {
+        return GDRPHelper.getFirebase_ad_storage();
+    }
+
+    @Benchmark
+    public boolean firebaseAdPersonalization()
+    {
+        return GDRPHelper.getFirebase_ad_personalization();
+    }
+
+    @Benchmark
+    public boolean firebaseAdUserData()
+    {
+        return GDRPHelper.getFirebase_ad_user_data();
+    }
+
+    @Benchmark
+    public boolean isVendorAutorized()
+    {
+        return GDRPHelper.isVendorAutorized( googleVendor );
+    }
+
+    @Benchmark
+    public boolean isAddtlConsentAutorized()
+    {
+        return GDRPHelper.isAddtlConsentAutorized( unityAds );
+    }
+
+    // -- Unity bridge
+
+    @Benchmark
+    public boolean bridgeGetCanShowAds()
+    {
+        return GoogleUserMessagingPlatform.GetCanShowAds();
+    }
+
+    @Benchmark
+    public long bridgeGetConsentFlags()
+    {
+        return GoogleUserMessagingPlatform.GetConsentFlags();
+    }
+
+    @Benchmark
+    public boolean bridgeGetConsentForVendor()
+    {
+        return GoogleUserMessagingPlatform.GetConsentForVendor( TCFPayloads.GOOGLE_VENDOR );
+    }
+
+    @Benchmark
+    public long[] bridgeGetConsentForVendors()
+    {
+        return GoogleUserMessagingPlatform.GetConsentForVendors( TCFPayloads.VENDORS );
+    }
+
+    @Benchmark
+    public long[] bridgeGetConsentForAdditionals()
+    {
+        return GoogleUserMessagingPlatform.GetConsentForAdditionals( TCFPayloads.ATPS );
+    }
+}
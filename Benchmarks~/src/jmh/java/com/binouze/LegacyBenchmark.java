@@ -0,0 +1,103 @@
+package com.binouze;
+
+import android.app.Activity;
+import android.content.SharedPreferences;
+import androidx.preference.PreferenceManager;
+import com.binouze.bench.TCFPayloads;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Baseline: the getters as they were before the consent snapshot, reading and scanning
+ * the raw preference strings on every call. Compare with GetterBenchmark.
+ */
+@State( Scope.Thread )
+public class LegacyBenchmark
+{
+    @Param
+    public TCFPayloads.Payload payload;
+
+    private SharedPreferences prefs;
+
+    @Setup
+    public void setup()
+    {
+        prefs = PreferenceManager.getDefaultSharedPreferences( new Activity() );
+        TCFPayloads.fill( prefs, payload );
+    }
+
+    @Benchmark
+    public boolean canShowAds()
+    {
+        String purposeConsent = prefs.getString( "IABTCF_PurposeConsents", "" );
+        String purposeLI      = prefs.getString( "IABTCF_PurposeLegitimateInterests", "" );
+        return hasConsentFor( Arrays.asList(1), purposeConsent ) &&
+               hasConsentOrLegitimateInterestFor( Arrays.asList(2,7,9,10), purposeConsent, purposeLI );
+    }
+
+    @Benchmark
+    public boolean canShowPersonalizedAds()
+    {
+        String purposeConsent = prefs.getString( "IABTCF_PurposeConsents", "" );
+        String purposeLI      = prefs.getString( "IABTCF_PurposeLegitimateInterests", "" );
+        return hasConsentFor( Arrays.asList(1,3,4), purposeConsent ) &&
+               hasConsentOrLegitimateInterestFor( Arrays.asList(2,7,9,10), purposeConsent, purposeLI );
+    }
+
+    @Benchmark
+    public boolean isVendorAutorized()
+    {
+        return hasAttribute( prefs.getString( "IABTCF_VendorConsents", "" ), TCFPayloads.GOOGLE_VENDOR );
+    }
+
+    @Benchmark
+    public boolean isAddtlConsentAutorized()
+    {
+        Integer externalID = 3234;
+        return prefs.getString( "IABTCF_AddtlConsent", "" ).contains( externalID.toString() );
+    }
+
+    @Benchmark
+    public long readCreated()
+    {
+        String tcString      = prefs.getString( "IABTCF_TCString", "AAAAAAA" );
+        String base64        = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        String dateSubstring = tcString.subSequence( 1, 7 ).toString();
+
+        long timestamp = 0;
+        for( int i=0; i<dateSubstring.length(); i++ )
+            timestamp = timestamp * 64 + base64.indexOf( dateSubstring.charAt(i) );
+        return timestamp * 100;
+    }
+
+    private static Boolean hasAttribute( String input, Integer index )
+    {
+        return input.length() >= index && input.charAt(index-1) == '1';
+    }
+
+    private static Boolean hasConsentFor( List<Integer> purposes, String purposeConsent )
+    {
+        for( int p : purposes )
+        {
+            if( !hasAttribute( purposeConsent, p ) )
+                return false;
+        }
+        return true;
+    }
+
+    private static Boolean hasConsentOrLegitimateInterestFor( List<Integer> purposes, String purposeConsent, String purposeLI )
+    {
+        for( int p : purposes )
+        {
+            if( !hasAttribute( purposeConsent, p ) && !hasAttribute( purposeLI, p ) )
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,72 @@
+package com.binouze;
+
+import android.app.Activity;
+import android.content.SharedPreferences;
+import androidx.preference.PreferenceManager;
+import com.binouze.bench.TCFPayloads;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of decoding the IABTCF_* preferences, paid once per consent change.
+ */
+@State( Scope.Thread )
+public class SnapshotBenchmark
+{
+    @Param
+    public TCFPayloads.Payload payload;
+
+    private SharedPreferences prefs;
+    private TCStringDecoder   decoder;
+    private TCString          decoded;
+    private String            tcString;
+    private String            vendorConsents;
+    private String            addtlConsent;
+
+    @Setup
+    public void setup()
+    {
+        prefs = PreferenceManager.getDefaultSharedPreferences( new Activity() );
+        TCFPayloads.fill( prefs, payload );
+
+        decoder        = new TCStringDecoder();
+        decoded        = new TCString();
+        tcString       = prefs.getString( "IABTCF_TCString", "" );
+        vendorConsents = prefs.getString( "IABTCF_VendorConsents", "" );
+        addtlConsent   = prefs.getString( "IABTCF_AddtlConsent", "" );
+    }
+
+    @Benchmark
+    public ConsentSnapshot buildSnapshot()
+    {
+        return new ConsentSnapshot( prefs, decoder );
+    }
+
+    @Benchmark
+    public boolean decodeTCString()
+    {
+        // reuses the vendor arrays of the previous decode
+        return decoder.decode( tcString, decoded );
+    }
+
+    @Benchmark
+    public long readCreated()
+    {
+        return TCStringDecoder.readCreated( tcString );
+    }
+
+    @Benchmark
+    public long[] parseVendorConsents()
+    {
+        return ConsentBits.parseBitSet( vendorConsents );
+    }
+
+    @Benchmark
+    public AddtlConsent parseAddtlConsent()
+    {
+        return AddtlConsent.parse( addtlConsent );
+    }
+}
@@ -0,0 +1,110 @@
+package com.binouze.bench;
+
+import android.content.SharedPreferences;
+
+import java.util.Random;
+
+/**
+ * IABTCF_* preference sets used by the benchmarks.
+ */
+public final class TCFPayloads
+{
+    public enum Payload
+    {
+        REALISTIC,
+        WORST_CASE,
+        EMPTY
+    }
+
+    // vendors and ATPs queried by the benchmarks
+    public static final int   GOOGLE_VENDOR = 755;
+    public static final int[] VENDORS       = { 1, 21, 32, 52, 76, 126, 128, 755, 793, 1126 };
+    public static final int[] ATPS          = { 89, 1046, 1301, 1423, 2710, 2898, 2900, 3234 };
+
+    private TCFPayloads() {}
+
+    public static void fill( SharedPreferences prefs, Payload payload )
+    {
+        SharedPreferences.Editor editor = prefs.edit().clear();
+        editor.putInt( "IABTCF_gdprApplies", 1 );
+
+        if( payload != Payload.EMPTY )
+        {
+            boolean worstCase   = payload == Payload.WORST_CASE;
+            int     maxVendorId = worstCase ? 1500 : 1100;
+            int     atpCount    = worstCase ? 2000 : 150;
+
+            Random    random  = new Random( 42 );
+            boolean[] vendors = new boolean[maxVendorId + 1];
+            for( int id=1; id<=maxVendorId; id++ )
+                vendors[id] = worstCase || random.nextInt( 3 ) == 0;
+            vendors[GOOGLE_VENDOR] = true;
+
+            boolean[] purposes = new boolean[25];
+            for( int p=1; p<=11; p++ )
+                purposes[p] = true;
+
+            editor.putString( "IABTCF_PurposeConsents", toBinaryString( purposes, 11 ) );
+            editor.putString( "IABTCF_PurposeLegitimateInterests", toBinaryString( purposes, 11 ) );
+            editor.putString( "IABTCF_VendorConsents", toBinaryString( vendors, maxVendorId ) );
+            editor.putString( "IABTCF_VendorLegitimateInterests", toBinaryString( vendors, maxVendorId ) );
+            editor.putString( "IABTCF_AddtlConsent", addtlConsent( atpCount ) );
+            editor.putString( "IABTCF_TCString", tcString( vendors, maxVendorId, purposes, worstCase ) );
+        }
+
+        editor.commit();
+    }
+
+    private static String toBinaryString( boolean[] values, int count )
+    {
+        StringBuilder sb = new StringBuilder( count );
+        for( int id=1; id<=count; id++ )
+            sb.append( values[id] ? '1' : '0' );
+        return sb.toString();
+    }
+
+    private static String addtlConsent( int count )
+    {
+        StringBuilder sb = new StringBuilder( "2~" );
+        for( int i=0; i<count; i++ )
+        {
+            if( i > 0 )
+                sb.append( '.' );
+            sb.append( 1 + i * 2 );
+        }
+        sb.append( "~dv.9.21.81" );
+        return sb.toString();
+    }
+
+    private static String tcString( boolean[] vendors, int maxVendorId, boolean[] purposes, boolean ranges )
+    {
+        long deciSeconds = System.currentTimeMillis() / 100;
+
+        TCStringEncoder encoder = new TCStringEncoder()
+            .write( 2, 6 )                  // version
+            .write( deciSeconds, 36 )       // created
+            .write( deciSeconds, 36 )       // last updated
+            .write( 300, 12 )               // cmp id
+            .write( 2, 12 )                 // cmp version
+            .write( 1, 6 )                  // consent screen
+            .write( ('E'-'A') << 6 | ('N'-'A'), 12 )
+            .write( 150, 12 )               // vendor list version
+            .write( 4, 6 )                  // policy version
+            .write( 0, 1 )                  // is service specific
+            .write( 0, 1 )                  // use non standard texts
+            .write( 0, 12 )                 // special features
+            .writeField( purposes, 24 )     // purposes consent
+            .writeField( purposes, 24 )     // purposes LI
+            .write( 0, 1 )                  // purpose one treatment
+            .write( ('F'-'A') << 6 | ('R'-'A'), 12 );
+
+        if( ranges )
+            encoder.writeVendorRanges( vendors, maxVendorId ).writeVendorRanges( vendors, maxVendorId );
+        else
+            encoder.writeVendorBitField( vendors, maxVendorId ).writeVendorBitField( vendors, maxVendorId );
+
+        // no publisher restriction
+        encoder.write( 0, 12 );
+        return encoder.toBase64();
+    }
+}
@@ -0,0 +1,72 @@
+package com.binouze.bench;
+
+/**
+ * Minimal TC string (v2) encoder used to build the benchmark payloads.
+ */
+public final class TCStringEncoder
+{
+    private static final String BASE64URL = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+
+    private final StringBuilder bits = new StringBuilder();
+
+    public TCStringEncoder write( long value, int count )
+    {
+        for( int i=count-1; i>=0; i-- )
+            bits.append( ((value >>> i) & 1) == 1 ? '1' : '0' );
+        return this;
+    }
+
+    /**
+     * write a bitfield where the first bit is ID 1
+     */
+    public TCStringEncoder writeField( boolean[] field, int count )
+    {
+        for( int id=1; id<=count; id++ )
+            bits.append( id < field.length && field[id] ? '1' : '0' );
+        return this;
+    }
+
+    /**
+     * write a vendor section as a bitfield
+     */
+    public TCStringEncoder writeVendorBitField( boolean[] vendors, int maxVendorId )
+    {
+        write( maxVendorId, 16 ).write( 0, 1 );
+        return writeField( vendors, maxVendorId );
+    }
+
+    /**
+     * write a vendor section in range encoding, one entry per consented vendor
+     */
+    public TCStringEncoder writeVendorRanges( boolean[] vendors, int maxVendorId )
+    {
+        int entries = 0;
+        for( int id=1; id<=maxVendorId; id++ )
+        {
+            if( vendors[id] )
+                entries++;
+        }
+
+        write( maxVendorId, 16 ).write( 1, 1 ).write( entries, 12 );
+        for( int id=1; id<=maxVendorId; id++ )
+        {
+            if( vendors[id] )
+                write( 0, 1 ).write( id, 16 );
+        }
+        return this;
+    }
+
+    /**
+     * pad to a multiple of 6 bits and encode in base64url
+     */
+    public String toBase64()
+    {
+        while( bits.length() % 6 != 0 )
+            bits.append( '0' );
+
+        StringBuilder out = new StringBuilder( bits.length() / 6 );
+        for( int i=0; i<bits.length(); i+=6 )
+            out.append( BASE64URL.charAt( Integer.parseInt( bits.substring( i, i+6 ), 2 ) ) );
+        return out.toString();
+    }
+}
@@ -0,0 +1,313 @@
+package com.binouze;
+
+import android.app.Activity;
+import android.util.Log;
+import androidx.preference.PreferenceManager;
+import com.binouze.bench.FakeUmp;
+import com.binouze.bench.TCFPayloads;
+import com.binouze.bench.UiThread;
+import com.binouze.bench.UnityMessages;
+import com.google.android.ump.FormError;
+import com.unity3d.player.UnityPlayer;
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Stress test of the init / form flow against the fake UMP SDK (FakeUmp).
+ * Several threads call Initialize at the same time, then mix LoadForm and getter calls, like a game calling
+ * the plugin from the Unity thread and from its own threads. Once the flow is idle the harness reports the
+ * latency percentiles of each bridge call and how the plugin used the SDK.
+ *
+ * The plugin state is static, so a JVM runs a single scenario:
+ *   gradle stress -Pstress.args="threads=8 calls=5000 infoFailures=2 formFailureRate=0.2"
+ * options (key=value): threads, calls, interval (us between two calls), loadFormRate, showRate,
+ * infoLatency, formLatency, showLatency, jitter (ms), infoFailures, infoFailureRate, formFailures,
+ * formFailureRate, infoTimeout, maxBackoff, idleTimeout (ms), log
+ *
+ * Exits with 1 if the SDK was used concurrently (overlapping info updates, form loads or shows),
+ * off the UI thread, if a form was shown twice, if a UI task threw or if the flow never became idle.
+ */
+public final class ConsentStress
+{
+    private static final String[] OPS = { "Initialize", "LoadForm", "GetConsentFlags", "GetCanRequestAds", "GetConsentStatus", "GetCanShowAds" };
+
+    private static final int INITIALIZE          = 0;
+    private static final int LOAD_FORM           = 1;
+    private static final int GET_CONSENT_FLAGS   = 2;
+    private static final int GET_CAN_REQUEST_ADS = 3;
+    private static final int GET_CONSENT_STATUS  = 4;
+    private static final int GET_CAN_SHOW_ADS    = 5;
+
+    // -- options
+
+    private static int     threads          = 8;
+    private static int     calls            = 2000;
+    // pause between two calls of a thread, so the calls overlap the info update and the form load
+    private static long    intervalUs       = 250;
+    // share of the calls that are LoadForm, and of those that show the form
+    private static double  loadFormRate     = 0.05;
+    private static double  showRate         = 0.1;
+    private static long    infoLatencyMs    = 200;
+    private static long    formLatencyMs    = 300;
+    private static long    showLatencyMs    = 100;
+    private static long    jitterMs         = 50;
+    private static int     infoFailures     = 0;
+    private static double  infoFailureRate  = 0;
+    private static int     formFailures     = 0;
+    private static double  formFailureRate  = 0;
+    private static long    infoTimeoutMs    = 0;
+    private static long    maxBackoffMs     = 400;
+    private static long    idleTimeoutMs    = 30_000;
+    private static boolean log              = false;
+
+    private ConsentStress() {}
+
+    public static void main( String[] args ) throws Exception
+    {
+        parse( args );
+        Log.printErrors = log;
+
+        // a record of a previous run would be used as the cached status
+        new File( System.getProperty( "java.io.tmpdir" ), "google_ump_consent.bin" ).delete();
+
+        Activity activity = new Activity();
+        UnityPlayer.currentActivity = activity;
+        TCFPayloads.fill( PreferenceManager.getDefaultSharedPreferences( activity ), TCFPayloads.Payload.REALISTIC );
+
+        FakeUmp.reset();
+        FakeUmp.infoUpdateLatencyMs = infoLatencyMs;
+        FakeUmp.formLoadLatencyMs   = formLatencyMs;
+        FakeUmp.formShowLatencyMs   = showLatencyMs;
+        FakeUmp.latencyJitterMs     = jitterMs;
+        FakeUmp.failInfoUpdates( infoFailures, infoFailureRate, FormError.ErrorCode.INTERNET_ERROR );
+        FakeUmp.failFormLoads( formFailures, formFailureRate, FormError.ErrorCode.INTERNAL_ERROR );
+        UnityMessages.clear();
+
+        GoogleUserMessagingPlatform.SetInfoUpdateOptions( infoTimeoutMs, Math.max( 3, infoFailures ), Math.max( 1, maxBackoffMs / 8 ), maxBackoffMs );
+
+        // -- run
+
+        long[][][]     latencies = new long[threads][OPS.length][];
+        CountDownLatch start     = new CountDownLatch( 1 );
+        Thread[]       workers   = new Thread[threads];
+        for( int t=0; t<threads; t++ )
+        {
+            long[][] own = latencies[t];
+            workers[t] = new Thread( () -> work( start, own ), "stress-" + t );
+            workers[t].start();
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for( Thread worker : workers )
+            worker.join();
+        long callsDoneNanos = System.nanoTime();
+
+        boolean idle = awaitIdle();
+        long    endNanos = System.nanoTime();
+
+        // -- report
+
+        System.out.printf( "%d threads x %d calls, calls done in %d ms, idle after %d ms%s%n", threads, calls,
+                           (callsDoneNanos - startNanos) / 1_000_000, (endNanos - startNanos) / 1_000_000, idle ? "" : " (NOT IDLE)" );
+
+        System.out.println();
+        System.out.printf( "%-18s %9s %9s %9s %9s %9s %9s%n", "call (us)", "count", "p50", "p90", "p99", "p99.9", "max" );
+        for( int op=0; op<OPS.length; op++ )
+            printPercentiles( OPS[op], merge( latencies, op ) );
+
+        System.out.println();
+        printFirstMessage( "first status (OnFormDissmissedMessage)", "OnFormDissmissedMessage", startNanos );
+        printFirstMessage( "info updated (OnConsentInfoUpdatedMessage)", "OnConsentInfoUpdatedMessage", startNanos );
+        Map<String, Integer> messages = new HashMap<>();
+        for( UnityMessages.Message m : UnityMessages.all() )
+            messages.merge( m.method, 1, Integer::sum );
+        System.out.println( "messages sent to Unity: " + messages );
+
+        System.out.println();
+        System.out.println( "SDK calls" );
+        System.out.printf( "  requestConsentInfoUpdate %6d  overlapping %d%n", FakeUmp.infoUpdates.get(), FakeUmp.overlappingInfoUpdates.get() );
+        System.out.printf( "  loadConsentForm          %6d  overlapping %d, discarded unshown forms %d%n", FakeUmp.formLoads.get(), FakeUmp.overlappingFormLoads.get(), FakeUmp.discardedForms.get() );
+        System.out.printf( "  ConsentForm.show         %6d  overlapping %d, shown twice %d%n", FakeUmp.formShows.get(), FakeUmp.overlappingFormShows.get(), FakeUmp.formReshows.get() );
+        System.out.printf( "  off the UI thread        %6d%n", FakeUmp.offUiThreadCalls.get() );
+        System.out.printf( "  UI tasks that threw      %6d%n", UiThread.failures() );
+
+        long[] metrics = GoogleUserMessagingPlatform.GetMetrics();
+        System.out.println();
+        System.out.printf( "plugin metrics (completed / failed): info update %d / %d, form load %d / %d, form show %d / %d%n",
+                           metrics[ConsentMetrics.OFFSET_COUNT + ConsentMetrics.INFO_UPDATE], errors( metrics, ConsentMetrics.INFO_UPDATE ),
+                           metrics[ConsentMetrics.OFFSET_COUNT + ConsentMetrics.FORM_LOAD],   errors( metrics, ConsentMetrics.FORM_LOAD ),
+                           metrics[ConsentMetrics.OFFSET_COUNT + ConsentMetrics.FORM_SHOW],   errors( metrics, ConsentMetrics.FORM_SHOW ) );
+
+        boolean failed = !idle
+                      || FakeUmp.overlappingInfoUpdates.get() > 0
+                      || FakeUmp.overlappingFormLoads.get()   > 0
+                      || FakeUmp.overlappingFormShows.get()   > 0
+                      || FakeUmp.formReshows.get()            > 0
+                      || FakeUmp.offUiThreadCalls.get()       > 0
+                      || UiThread.failures()                  > 0;
+        System.out.println();
+        System.out.println( failed ? "FAILED" : "OK" );
+        System.exit( failed ? 1 : 0 );
+    }
+
+    private static void work( CountDownLatch start, long[][] latencies )
+    {
+        for( int op=0; op<OPS.length; op++ )
+            latencies[op] = new long[calls + 1];
+        int[] counts = new int[OPS.length];
+
+        try
+        {
+            start.await();
+        }
+        catch( InterruptedException e )
+        {
+            return;
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long t0 = System.nanoTime();
+        GoogleUserMessagingPlatform.Initialize();
+        latencies[INITIALIZE][counts[INITIALIZE]++] = System.nanoTime() - t0;
+
+        for( int i=0; i<calls; i++ )
+        {
+            int op;
+            if( random.nextDouble() < loadFormRate )
+                op = LOAD_FORM;
+            else
+                op = GET_CONSENT_FLAGS + random.nextInt( 4 );
+
+            t0 = System.nanoTime();
+            switch( op )
+            {
+                case LOAD_FORM:           GoogleUserMessagingPlatform.LoadForm( random.nextDouble() < showRate, random.nextBoolean() ); break;
+                case GET_CONSENT_FLAGS:   GoogleUserMessagingPlatform.GetConsentFlags();  break;
+                case GET_CAN_REQUEST_ADS: GoogleUserMessagingPlatform.GetCanRequestAds(); break;
+                case GET_CONSENT_STATUS:  GoogleUserMessagingPlatform.GetConsentStatus(); break;
+                default:                  GoogleUserMessagingPlatform.GetCanShowAds();    break;
+            }
+            latencies[op][counts[op]++] = System.nanoTime() - t0;
+
+            if( intervalUs > 0 )
+                LockSupport.parkNanos( intervalUs * 1000 );
+        }
+
+        for( int op=0; op<OPS.length; op++ )
+            latencies[op] = Arrays.copyOf( latencies[op], counts[op] );
+    }
+
+    // wait until nothing is queued on the UI thread and no SDK call is in flight for longer than a retry backoff
+    private static boolean awaitIdle() throws InterruptedException
+    {
+        long quietMs  = maxBackoffMs + 200;
+        long deadline = System.currentTimeMillis() + idleTimeoutMs;
+        long idleFrom = 0;
+        while( System.currentTimeMillis() < deadline )
+        {
+            long now = System.currentTimeMillis();
+            if( !UiThread.isIdle() || FakeUmp.inFlight() > 0 )
+                idleFrom = 0;
+            else if( idleFrom == 0 )
+                idleFrom = now;
+            else if( now - idleFrom >= quietMs )
+                return true;
+            Thread.sleep( 10 );
+        }
+        return false;
+    }
+
+    private static long[] merge( long[][][] latencies, int op )
+    {
+        int size = 0;
+        for( long[][] own : latencies )
+            size += own[op].length;
+
+        long[] all = new long[size];
+        int    pos = 0;
+        for( long[][] own : latencies )
+        {
+            System.arraycopy( own[op], 0, all, pos, own[op].length );
+            pos += own[op].length;
+        }
+        Arrays.sort( all );
+        return all;
+    }
+
+    private static void printPercentiles( String name, long[] sorted )
+    {
+        if( sorted.length == 0 )
+        {
+            System.out.printf( "%-18s %9d%n", name, 0 );
+            return;
+        }
+        System.out.printf( "%-18s %9d %9.1f %9.1f %9.1f %9.1f %9.1f%n", name, sorted.length,
+                           percentile( sorted, 0.5 ), percentile( sorted, 0.9 ), percentile( sorted, 0.99 ),
+                           percentile( sorted, 0.999 ), sorted[sorted.length - 1] / 1000.0 );
+    }
+
+    // nearest rank, in microseconds
+    private static double percentile( long[] sorted, double p )
+    {
+        int rank = (int)Math.ceil( p * sorted.length ) - 1;
+        return sorted[Math.max( 0, rank )] / 1000.0;
+    }
+
+    private static void printFirstMessage( String label, String method, long startNanos )
+    {
+        List<UnityMessages.Message> sent = UnityMessages.of( method );
+        if( sent.isEmpty() )
+            System.out.println( label + ": never sent" );
+        else
+            System.out.println( label + ": " + (sent.get( 0 ).timeNanos - startNanos) / 1_000_000 + " ms, \"" + sent.get( 0 ).message + "\"" );
+    }
+
+    private static long errors( long[] metrics, int operation )
+    {
+        long count = 0;
+        for( int code=0; code<ConsentMetrics.ERROR_CODES; code++ )
+            count += metrics[ConsentMetrics.OFFSET_ERRORS + operation * ConsentMetrics.ERROR_CODES + code];
+        return count;
+    }
+
+    private static void parse( String[] args )
+    {
+        for( String arg : args )
+        {
+            int eq = arg.indexOf( '=' );
+            if( eq < 0 )
+                throw new IllegalArgumentException( "expected key=value: " + arg );
+
+            String key   = arg.substring( 0, eq );
+            String value = arg.substring( eq + 1 );
+            switch( key )
+            {
+                case "threads":         threads         = Integer.parseInt( value );   break;
+                case "calls":           calls           = Integer.parseInt( value );   break;
+                case "interval":        intervalUs      = Long.parseLong( value );     break;
+                case "loadFormRate":    loadFormRate    = Double.parseDouble( value ); break;
+                case "showRate":        showRate        = Double.parseDouble( value ); break;
+                case "infoLatency":     infoLatencyMs   = Long.parseLong( value );     break;
+                case "formLatency":     formLatencyMs   = Long.parseLong( value );     break;
+                case "showLatency":     showLatencyMs   = Long.parseLong( value );     break;
+                case "jitter":          jitterMs        = Long.parseLong( value );     break;
+                case "infoFailures":    infoFailures    = Integer.parseInt( value );   break;
+                case "infoFailureRate": infoFailureRate = Double.parseDouble( value ); break;
+                case "formFailures":    formFailures    = Integer.parseInt( value );   break;
+                case "formFailureRate": formFailureRate = Double.parseDouble( value ); break;
+                case "infoTimeout":     infoTimeoutMs   = Long.parseLong( value );     break;
+                case "maxBackoff":      maxBackoffMs    = Long.parseLong( value );     break;
+                case "idleTimeout":     idleTimeoutMs   = Long.parseLong( value );     break;
+                case "log":             log             = Boolean.parseBoolean( value ); break;
+                default: throw new IllegalArgumentException( "unknown option: " + key );
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package android.app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import com.binouze.bench.InMemorySharedPreferences;
+import com.binouze.bench.UiThread;
+
+/**
+ * JVM stand-in for an Activity: a single in-memory preferences file, UI thread tasks run on UiThread
+ * (inline when already on it, like on Android).
+ */
+public class Activity extends Context
+{
+    private final SharedPreferences preferences = new InMemorySharedPreferences();
+
+    @Override
+    public SharedPreferences getSharedPreferences( String name, int mode )
+    {
+        return preferences;
+    }
+
+    public void runOnUiThread( Runnable action )
+    {
+        if( UiThread.isCurrentThread() )
+            action.run();
+        else
+            UiThread.post( action );
+    }
+}
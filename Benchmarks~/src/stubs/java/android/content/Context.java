@@ -0,0 +1,34 @@
+package android.content;
+
+import java.io.File;
+
+/**
+ * JVM stand-in for the Android Context, only what the plugin uses.
+ */
+public abstract class Context
+{
+    public static final int    MODE_PRIVATE         = 0;
+    public static final String CONNECTIVITY_SERVICE = "connectivity";
+
+    public Context getApplicationContext()
+    {
+        return this;
+    }
+
+    public String getPackageName()
+    {
+        return "com.binouze.benchmarks";
+    }
+
+    public Object getSystemService( String name )
+    {
+        return null;
+    }
+
+    public abstract SharedPreferences getSharedPreferences( String name, int mode );
+
+    public File getFilesDir()
+    {
+        return new File( System.getProperty( "java.io.tmpdir" ) );
+    }
+}
@@ -0,0 +1,29 @@
+package android.net;
+
+/**
+ * JVM stand-in for the Android ConnectivityManager, only what the plugin uses.
+ * The JVM is always considered connected.
+ */
+public class ConnectivityManager
+{
+    public static class NetworkCallback
+    {
+        public void onAvailable( Network network )
+        {
+        }
+    }
+
+    public Network getActiveNetwork()
+    {
+        return new Network();
+    }
+
+    public void registerDefaultNetworkCallback( NetworkCallback callback )
+    {
+        callback.onAvailable( getActiveNetwork() );
+    }
+
+    public void unregisterNetworkCallback( NetworkCallback callback )
+    {
+    }
+}
@@ -0,0 +1,8 @@
+package android.net;
+
+/**
+ * JVM stand-in for the Android Network handle.
+ */
+public class Network
+{
+}
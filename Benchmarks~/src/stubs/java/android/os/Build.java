@@ -0,0 +1,17 @@
+package android.os;
+
+/**
+ * JVM stand-in for android.os.Build, only what the plugin uses.
+ */
+public final class Build
+{
+    public static final class VERSION
+    {
+        public static final int SDK_INT = 34;
+    }
+
+    public static final class VERSION_CODES
+    {
+        public static final int N = 24;
+    }
+}
@@ -0,0 +1,24 @@
+package android.os;
+
+/**
+ * JVM stand-in for android.os.SystemClock, backed by System.nanoTime.
+ */
+public final class SystemClock
+{
+    private SystemClock() {}
+
+    public static long elapsedRealtime()
+    {
+        return System.nanoTime() / 1_000_000;
+    }
+
+    public static long elapsedRealtimeNanos()
+    {
+        return System.nanoTime();
+    }
+
+    public static long uptimeMillis()
+    {
+        return System.nanoTime() / 1_000_000;
+    }
+}
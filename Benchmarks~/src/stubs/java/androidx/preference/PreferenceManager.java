@@ -0,0 +1,17 @@
+package androidx.preference;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+/**
+ * JVM stand-in for androidx.preference.PreferenceManager.
+ */
+public final class PreferenceManager
+{
+    private PreferenceManager() {}
+
+    public static SharedPreferences getDefaultSharedPreferences( Context context )
+    {
+        return context.getSharedPreferences( context.getPackageName() + "_preferences", Context.MODE_PRIVATE );
+    }
+}
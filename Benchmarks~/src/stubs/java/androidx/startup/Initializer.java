@@ -0,0 +1,14 @@
+package androidx.startup;
+
+import android.content.Context;
+import java.util.List;
+
+/**
+ * JVM stand-in for androidx.startup.Initializer.
+ */
+public interface Initializer<T>
+{
+    T create( Context context );
+
+    List<Class<? extends Initializer<?>>> dependencies();
+}
@@ -0,0 +1,289 @@
+package com.binouze.bench;
+
+import android.app.Activity;
+import android.content.Context;
+import com.google.android.ump.ConsentForm;
+import com.google.android.ump.ConsentInformation;
+import com.google.android.ump.ConsentRequestParameters;
+import com.google.android.ump.FormError;
+import com.google.android.ump.UserMessagingPlatform;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fake UMP SDK behind the UserMessagingPlatform stand-in.
+ * Every call answers on the UI thread (UiThread) after a configurable latency, and can be made to fail:
+ * the next N calls fail with a given error code, then each call fails with a given probability.
+ * The counters tell how the plugin used the SDK: calls made off the UI thread, calls started while
+ * the same one was still in flight, loaded forms that were dropped without being shown.
+ *
+ * The consent status is NOT_REQUIRED / REQUIRED after the first successful update (formAvailable decides),
+ * OBTAINED once a form was dismissed. The configuration is read when each call starts.
+ */
+public final class FakeUmp
+{
+    // -- configuration
+
+    public static volatile long    infoUpdateLatencyMs = 50;
+    public static volatile long    formLoadLatencyMs   = 100;
+    public static volatile long    formShowLatencyMs   = 200;
+    // random extra latency, between 0 and this value
+    public static volatile long    latencyJitterMs     = 0;
+    // consent form available after the update, the consent is then REQUIRED until a form is dismissed
+    public static volatile boolean formAvailable       = true;
+
+    private static final Failures infoUpdateFailures = new Failures();
+    private static final Failures formLoadFailures   = new Failures();
+    private static final Failures formShowFailures   = new Failures();
+
+    // -- counters
+
+    public static final AtomicInteger infoUpdates            = new AtomicInteger();
+    public static final AtomicInteger formLoads              = new AtomicInteger();
+    public static final AtomicInteger formShows              = new AtomicInteger();
+    // calls started while the previous one of the same kind was still in flight
+    public static final AtomicInteger overlappingInfoUpdates = new AtomicInteger();
+    public static final AtomicInteger overlappingFormLoads   = new AtomicInteger();
+    public static final AtomicInteger overlappingFormShows   = new AtomicInteger();
+    // a form was loaded while the previous loaded form was never shown
+    public static final AtomicInteger discardedForms         = new AtomicInteger();
+    // show called twice on the same form, the UMP SDK rejects it
+    public static final AtomicInteger formReshows            = new AtomicInteger();
+    // SDK calls made off the UI thread
+    public static final AtomicInteger offUiThreadCalls       = new AtomicInteger();
+
+    private static final AtomicInteger infoUpdatesInFlight = new AtomicInteger();
+    private static final AtomicInteger formLoadsInFlight   = new AtomicInteger();
+    private static final AtomicInteger formShowsInFlight   = new AtomicInteger();
+
+    private static final Information information = new Information();
+    private static volatile Form     lastForm;
+
+    private FakeUmp() {}
+
+    /**
+     * the next count calls fail with this error code, then each call fails with the probability rate
+     */
+    public static void failInfoUpdates( int count, double rate, int errorCode )
+    {
+        infoUpdateFailures.set( count, rate, errorCode );
+    }
+
+    public static void failFormLoads( int count, double rate, int errorCode )
+    {
+        formLoadFailures.set( count, rate, errorCode );
+    }
+
+    /**
+     * the form is dismissed with an error, the consent is not obtained
+     */
+    public static void failFormShows( int count, double rate, int errorCode )
+    {
+        formShowFailures.set( count, rate, errorCode );
+    }
+
+    /**
+     * number of SDK calls waiting for their result
+     */
+    public static int inFlight()
+    {
+        return infoUpdatesInFlight.get() + formLoadsInFlight.get() + formShowsInFlight.get();
+    }
+
+    /**
+     * back to the default configuration, no consent stored, counters cleared
+     */
+    public static void reset()
+    {
+        infoUpdateLatencyMs = 50;
+        formLoadLatencyMs   = 100;
+        formShowLatencyMs   = 200;
+        latencyJitterMs     = 0;
+        formAvailable       = true;
+        infoUpdateFailures.set( 0, 0, 0 );
+        formLoadFailures.set( 0, 0, 0 );
+        formShowFailures.set( 0, 0, 0 );
+
+        for( AtomicInteger counter : new AtomicInteger[]{ infoUpdates, formLoads, formShows, overlappingInfoUpdates, overlappingFormLoads,
+                                                          overlappingFormShows, discardedForms, formReshows, offUiThreadCalls } )
+            counter.set( 0 );
+        information.clear();
+        lastForm = null;
+    }
+
+    // -- UserMessagingPlatform
+
+    public static ConsentInformation getConsentInformation( Context context )
+    {
+        checkUiThread();
+        return information;
+    }
+
+    public static void loadConsentForm( Context context, UserMessagingPlatform.OnConsentFormLoadSuccessListener onSuccess, UserMessagingPlatform.OnConsentFormLoadFailureListener onFailure )
+    {
+        checkUiThread();
+        formLoads.incrementAndGet();
+        if( formLoadsInFlight.getAndIncrement() > 0 )
+            overlappingFormLoads.incrementAndGet();
+
+        int error = formLoadFailures.next();
+        UiThread.postDelayed( () ->
+        {
+            formLoadsInFlight.decrementAndGet();
+            if( error != 0 )
+            {
+                onFailure.onConsentFormLoadFailure( new FormError( error, "fake form load failure" ) );
+                return;
+            }
+
+            Form previous = lastForm;
+            if( previous != null && !previous.shown )
+                discardedForms.incrementAndGet();
+
+            Form form = new Form();
+            lastForm  = form;
+            onSuccess.onConsentFormLoadSuccess( form );
+        }, latency( formLoadLatencyMs ) );
+    }
+
+    private static void checkUiThread()
+    {
+        if( !UiThread.isCurrentThread() )
+            offUiThreadCalls.incrementAndGet();
+    }
+
+    private static long latency( long base )
+    {
+        long jitter = latencyJitterMs;
+        return base + (jitter > 0 ? ThreadLocalRandom.current().nextLong( jitter + 1 ) : 0);
+    }
+
+    // -- fakes
+
+    private static final class Failures
+    {
+        private int    remaining;
+        private double rate;
+        private int    errorCode;
+
+        synchronized void set( int count, double rate, int errorCode )
+        {
+            this.remaining = count;
+            this.rate      = rate;
+            this.errorCode = errorCode;
+        }
+
+        // error code of the next call, 0 for a success
+        synchronized int next()
+        {
+            if( remaining > 0 )
+            {
+                remaining--;
+                return errorCode;
+            }
+            return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate ? errorCode : 0;
+        }
+    }
+
+    private static final class Information implements ConsentInformation
+    {
+        private volatile int     status = ConsentStatus.UNKNOWN;
+        private volatile boolean available;
+
+        void clear()
+        {
+            status    = ConsentStatus.UNKNOWN;
+            available = false;
+        }
+
+        @Override
+        public void requestConsentInfoUpdate( Activity activity, ConsentRequestParameters params, OnConsentInfoUpdateSuccessListener onSuccess, OnConsentInfoUpdateFailureListener onFailure )
+        {
+            checkUiThread();
+            infoUpdates.incrementAndGet();
+            if( infoUpdatesInFlight.getAndIncrement() > 0 )
+                overlappingInfoUpdates.incrementAndGet();
+
+            int     error   = infoUpdateFailures.next();
+            boolean formNow = formAvailable;
+            UiThread.postDelayed( () ->
+            {
+                infoUpdatesInFlight.decrementAndGet();
+                if( error != 0 )
+                {
+                    onFailure.onConsentInfoUpdateFailure( new FormError( error, "fake consent info update failure" ) );
+                    return;
+                }
+
+                available = formNow;
+                if( status != ConsentStatus.OBTAINED )
+                    status = formNow ? ConsentStatus.REQUIRED : ConsentStatus.NOT_REQUIRED;
+                onSuccess.onConsentInfoUpdateSuccess();
+            }, latency( infoUpdateLatencyMs ) );
+        }
+
+        @Override
+        public boolean isConsentFormAvailable()
+        {
+            checkUiThread();
+            return available;
+        }
+
+        @Override
+        public boolean canRequestAds()
+        {
+            int s = status;
+            return s == ConsentStatus.NOT_REQUIRED || s == ConsentStatus.OBTAINED;
+        }
+
+        @Override
+        public int getConsentStatus()
+        {
+            return status;
+        }
+
+        @Override
+        public void reset()
+        {
+            checkUiThread();
+            clear();
+        }
+    }
+
+    private static final class Form implements ConsentForm
+    {
+        // only touched on the UI thread
+        private boolean shown;
+
+        @Override
+        public void show( Activity activity, OnConsentFormDismissedListener listener )
+        {
+            checkUiThread();
+            if( shown )
+            {
+                formReshows.incrementAndGet();
+                UiThread.post( () -> listener.onConsentFormDismissed( new FormError( FormError.ErrorCode.INVALID_OPERATION, "form already shown" ) ) );
+                return;
+            }
+            shown = true;
+
+            formShows.incrementAndGet();
+            if( formShowsInFlight.getAndIncrement() > 0 )
+                overlappingFormShows.incrementAndGet();
+
+            int error = formShowFailures.next();
+            UiThread.postDelayed( () ->
+            {
+                formShowsInFlight.decrementAndGet();
+                if( error != 0 )
+                {
+                    listener.onConsentFormDismissed( new FormError( error, "fake form show failure" ) );
+                    return;
+                }
+
+                information.status = ConsentInformation.ConsentStatus.OBTAINED;
+                listener.onConsentFormDismissed( null );
+            }, latency( formShowLatencyMs ) );
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.binouze.bench;
+
+import android.content.SharedPreferences;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * SharedPreferences kept in a map, listeners are notified synchronously on commit/apply.
+ */
+public final class InMemorySharedPreferences implements SharedPreferences
+{
+    private final Map<String, Object>                    values    = new HashMap<>();
+    private final List<OnSharedPreferenceChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public synchronized Map<String, ?> getAll()
+    {
+        return new HashMap<>( values );
+    }
+
+    @Override
+    public synchronized String getString( String key, String defValue )
+    {
+        Object value = values.get( key );
+        return value instanceof String ? (String)value : defValue;
+    }
+
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public synchronized Set<String> getStringSet( String key, Set<String> defValues )
+    {
+        Object value = values.get( key );
+        return value instanceof Set ? (Set<String>)value : defValues;
+    }
+
+    @Override
+    public synchronized int getInt( String key, int defValue )
+    {
+        Object value = values.get( key );
+        return value instanceof Integer ? (Integer)value : defValue;
+    }
+
+    @Override
+    public synchronized long getLong( String key, long defValue )
+    {
+        Object value = values.get( key );
+        return value instanceof Long ? (Long)value : defValue;
+    }
+
+    @Override
+    public synchronized float getFloat( String key, float defValue )
+    {
+        Object value = values.get( key );
+        return value instanceof Float ? (Float)value : defValue;
+    }
+
+    @Override
+    public synchronized boolean getBoolean( String key, boolean defValue )
+    {
+        Object value = values.get( key );
+        return value instanceof Boolean ? (Boolean)value : defValue;
+    }
+
+    @Override
+    public synchronized boolean contains( String key )
+    {
+        return values.containsKey( key );
+    }
+
+    @Override
+    public Editor edit()
+    {
+        return new InMemoryEditor();
+    }
+
+    @Override
+    public void registerOnSharedPreferenceChangeListener( OnSharedPreferenceChangeListener listener )
+    {
+        listeners.add( listener );
+    }
+
+    @Override
+    public void unregisterOnSharedPreferenceChangeListener( OnSharedPreferenceChangeListener listener )
+    {
+        listeners.remove( listener );
+    }
+
+    private final class InMemoryEditor implements Editor
+    {
+        private final Map<String, Object> changes  = new HashMap<>();
+        private final Set<String>         removals = new LinkedHashSet<>();
+        private       boolean             clear    = false;
+
+        @Override public Editor putString( String key, String value )         { changes.put( key, value ); return this; }
+        @Override public Editor putStringSet( String key, Set<String> values ) { changes.put( key, values ); return this; }
+        @Override public Editor putInt( String key, int value )               { changes.put( key, value ); return this; }
+        @Override public Editor putLong( String key, long value )             { changes.put( key, value ); return this; }
+        @Override public Editor putFloat( String key, float value )           { changes.put( key, value ); return this; }
+        @Override public Editor putBoolean( String key, boolean value )       { changes.put( key, value ); return this; }
+        @Override public Editor remove( String key )                          { removals.add( key ); return this; }
+        @Override public Editor clear()                                       { clear = true; return this; }
+
+        @Override
+        public boolean commit()
+        {
+            List<String> changedKeys = new ArrayList<>();
+            synchronized( InMemorySharedPreferences.this )
+            {
+                if( clear )
+                    values.clear();
+                for( String key : removals )
+                {
+                    if( values.remove( key ) != null )
+                        changedKeys.add( key );
+                }
+                for( Map.Entry<String, Object> entry : changes.entrySet() )
+                {
+                    values.put( entry.getKey(), entry.getValue() );
+                    changedKeys.add( entry.getKey() );
+                }
+            }
+
+            if( clear )
+                notifyListeners( null );
+            for( String key : changedKeys )
+                notifyListeners( key );
+            return true;
+        }
+
+        @Override
+        public void apply()
+        {
+            commit();
+        }
+
+        private void notifyListeners( String key )
+        {
+            for( OnSharedPreferenceChangeListener listener : listeners )
+                listener.onSharedPreferenceChanged( InMemorySharedPreferences.this, key );
+        }
+    }
+}
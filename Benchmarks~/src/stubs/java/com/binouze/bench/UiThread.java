@@ -0,0 +1,76 @@
+package com.binouze.bench;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * JVM stand-in for the Android main thread: a single thread running the posted tasks in order.
+ * Tracks the queued tasks (delayed ones included) so a test can wait for the UI thread to be idle.
+ */
+public final class UiThread
+{
+    private static final AtomicInteger pending  = new AtomicInteger();
+    private static final AtomicInteger failures = new AtomicInteger();
+    private static volatile Thread     thread;
+
+    private static final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor( 1, runnable ->
+    {
+        Thread t = new Thread( runnable, "ui" );
+        t.setDaemon( true );
+        thread = t;
+        return t;
+    });
+
+    private UiThread() {}
+
+    public static boolean isCurrentThread()
+    {
+        return Thread.currentThread() == thread;
+    }
+
+    public static void post( Runnable task )
+    {
+        pending.incrementAndGet();
+        executor.execute( () -> run( task ) );
+    }
+
+    public static void postDelayed( Runnable task, long delayMs )
+    {
+        pending.incrementAndGet();
+        executor.schedule( () -> run( task ), delayMs, TimeUnit.MILLISECONDS );
+    }
+
+    /**
+     * true if no task is running, queued or scheduled
+     */
+    public static boolean isIdle()
+    {
+        return pending.get() == 0;
+    }
+
+    /**
+     * number of tasks that threw, the app would have crashed on a device
+     */
+    public static int failures()
+    {
+        return failures.get();
+    }
+
+    private static void run( Runnable task )
+    {
+        try
+        {
+            task.run();
+        }
+        catch( Throwable e )
+        {
+            failures.incrementAndGet();
+            e.printStackTrace();
+        }
+        finally
+        {
+            pending.decrementAndGet();
+        }
+    }
+}
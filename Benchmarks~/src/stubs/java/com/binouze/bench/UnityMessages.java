@@ -0,0 +1,69 @@
+package com.binouze.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Captures the messages sent to Unity by UnityPlayer.UnitySendMessage.
+ */
+public final class UnityMessages
+{
+    public static final class Message
+    {
+        public final long   timeNanos;
+        public final String gameObject;
+        public final String method;
+        public final String message;
+
+        Message( long timeNanos, String gameObject, String method, String message )
+        {
+            this.timeNanos  = timeNanos;
+            this.gameObject = gameObject;
+            this.method     = method;
+            this.message    = message;
+        }
+
+        @Override
+        public String toString()
+        {
+            return gameObject + "." + method + "(" + message + ")";
+        }
+    }
+
+    private static final ConcurrentLinkedQueue<Message> messages = new ConcurrentLinkedQueue<>();
+
+    private UnityMessages() {}
+
+    public static void send( String gameObject, String method, String message )
+    {
+        messages.add( new Message( System.nanoTime(), gameObject, method, message ) );
+    }
+
+    /**
+     * every message sent since the last clear, in order
+     */
+    public static List<Message> all()
+    {
+        return new ArrayList<>( messages );
+    }
+
+    /**
+     * messages sent to this method, in order
+     */
+    public static List<Message> of( String method )
+    {
+        List<Message> result = new ArrayList<>();
+        for( Message m : messages )
+        {
+            if( m.method.equals( method ) )
+                result.add( m );
+        }
+        return result;
+    }
+
+    public static void clear()
+    {
+        messages.clear();
+    }
+}
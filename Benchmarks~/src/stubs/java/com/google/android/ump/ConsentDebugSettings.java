@@ -0,0 +1,17 @@
+package com.google.android.ump;
+
+import android.content.Context;
+
+/**
+ * JVM stand-in for the UMP ConsentDebugSettings.
+ */
+public class ConsentDebugSettings
+{
+    public static class Builder
+    {
+        public Builder( Context context ) {}
+        public Builder setDebugGeography( int geography ) { return this; }
+        public Builder addTestDeviceHashedId( String hashedId ) { return this; }
+        public ConsentDebugSettings build() { return new ConsentDebugSettings(); }
+    }
+}
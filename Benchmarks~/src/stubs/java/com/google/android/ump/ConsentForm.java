@@ -0,0 +1,16 @@
+package com.google.android.ump;
+
+import android.app.Activity;
+
+/**
+ * JVM stand-in for the UMP ConsentForm.
+ */
+public interface ConsentForm
+{
+    interface OnConsentFormDismissedListener
+    {
+        void onConsentFormDismissed( FormError formError );
+    }
+
+    void show( Activity activity, OnConsentFormDismissedListener listener );
+}
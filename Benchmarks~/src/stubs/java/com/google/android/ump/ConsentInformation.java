@@ -0,0 +1,35 @@
+package com.google.android.ump;
+
+import android.app.Activity;
+
+/**
+ * JVM stand-in for the UMP ConsentInformation.
+ */
+public interface ConsentInformation
+{
+    final class ConsentStatus
+    {
+        public static final int UNKNOWN      = 0;
+        public static final int NOT_REQUIRED = 1;
+        public static final int REQUIRED     = 2;
+        public static final int OBTAINED     = 3;
+
+        private ConsentStatus() {}
+    }
+
+    interface OnConsentInfoUpdateSuccessListener
+    {
+        void onConsentInfoUpdateSuccess();
+    }
+
+    interface OnConsentInfoUpdateFailureListener
+    {
+        void onConsentInfoUpdateFailure( FormError formError );
+    }
+
+    void requestConsentInfoUpdate( Activity activity, ConsentRequestParameters params, OnConsentInfoUpdateSuccessListener onSuccess, OnConsentInfoUpdateFailureListener onFailure );
+    boolean isConsentFormAvailable();
+    boolean canRequestAds();
+    int getConsentStatus();
+    void reset();
+}
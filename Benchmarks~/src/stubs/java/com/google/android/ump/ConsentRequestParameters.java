@@ -0,0 +1,14 @@
+package com.google.android.ump;
+
+/**
+ * JVM stand-in for the UMP ConsentRequestParameters.
+ */
+public class ConsentRequestParameters
+{
+    public static class Builder
+    {
+        public Builder setTagForUnderAgeOfConsent( boolean underAge ) { return this; }
+        public Builder setConsentDebugSettings( ConsentDebugSettings settings ) { return this; }
+        public ConsentRequestParameters build() { return new ConsentRequestParameters(); }
+    }
+}
@@ -0,0 +1,36 @@
+package com.google.android.ump;
+
+/**
+ * JVM stand-in for the UMP FormError.
+ */
+public class FormError
+{
+    public static final class ErrorCode
+    {
+        public static final int INTERNAL_ERROR    = 1;
+        public static final int INTERNET_ERROR    = 2;
+        public static final int INVALID_OPERATION = 3;
+        public static final int TIME_OUT          = 4;
+
+        private ErrorCode() {}
+    }
+
+    private final int    errorCode;
+    private final String message;
+
+    public FormError( int errorCode, String message )
+    {
+        this.errorCode = errorCode;
+        this.message   = message;
+    }
+
+    public int getErrorCode()
+    {
+        return errorCode;
+    }
+
+    public String getMessage()
+    {
+        return message;
+    }
+}
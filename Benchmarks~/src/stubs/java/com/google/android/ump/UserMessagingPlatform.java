@@ -0,0 +1,32 @@
+package com.google.android.ump;
+
+import android.content.Context;
+import com.binouze.bench.FakeUmp;
+
+/**
+ * JVM stand-in for the UMP entry point, backed by FakeUmp.
+ */
+public final class UserMessagingPlatform
+{
+    public interface OnConsentFormLoadSuccessListener
+    {
+        void onConsentFormLoadSuccess( ConsentForm form );
+    }
+
+    public interface OnConsentFormLoadFailureListener
+    {
+        void onConsentFormLoadFailure( FormError formError );
+    }
+
+    private UserMessagingPlatform() {}
+
+    public static ConsentInformation getConsentInformation( Context context )
+    {
+        return FakeUmp.getConsentInformation( context );
+    }
+
+    public static void loadConsentForm( Context context, OnConsentFormLoadSuccessListener onSuccess, OnConsentFormLoadFailureListener onFailure )
+    {
+        FakeUmp.loadConsentForm( context, onSuccess, onFailure );
+    }
+}
@@ -0,0 +1,17 @@
+package com.unity3d.player;
+
+import android.app.Activity;
+import com.binouze.bench.UnityMessages;
+
+/**
+ * JVM stand-in for the UnityPlayer, messages sent to Unity are captured by UnityMessages.
+ */
+public class UnityPlayer
+{
+    public static Activity currentActivity;
+
+    public static void UnitySendMessage( String gameObject, String method, String message )
+    {
+        UnityMessages.send( gameObject, method, message );
+    }
+}
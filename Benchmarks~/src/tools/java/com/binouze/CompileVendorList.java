@@ -0,0 +1,26 @@
+package com.binouze;
+
+import java.io.File;
+
+/**
+ * Build step, compiles a Global Vendor List JSON into the index file loaded by LoadGlobalVendorList:
+ *
+ *   gradle vendorList -Pvendorlist.args="vendor-list.json vendor-list.gvli"
+ */
+public final class CompileVendorList
+{
+    public static void main( String[] args ) throws Exception
+    {
+        if( args.length != 2 )
+        {
+            System.err.println( "usage: CompileVendorList <vendor-list.json> <index file>" );
+            System.exit( 1 );
+        }
+
+        File out = new File( args[1] );
+        GlobalVendorList.compile( new File( args[0] ), out );
+
+        GlobalVendorList list = GlobalVendorList.map( out );
+        System.out.println( "vendor list " + list.vendorListVersion + ": " + list.vendorCount + " vendors, max ID " + list.maxVendorId + ", " + out.length() + " bytes" );
+    }
+}
@@ -0,0 +1,142 @@
+package com.binouze;
+
+import java.util.Arrays;
+
+/**
+ * Parsed IABTCF_AddtlConsent (Google Additional Consent Mode) string.
+ * "1~1.35.41" (v1) or "2~1.35.41~dv.9.21" (v2): the consented ATP IDs come after the first '~',
+ * v2 adds the IDs that were disclosed to the user (but not consented) after "dv.".
+ * The IDs are kept in sorted arrays so a lookup is a binary search.
+ * @see https://support.google.com/admanager/answer/9681920?hl=en
+ */
+public final class AddtlConsent
+{
+    private static final int[] NONE = new int[0];
+
+    static final AddtlConsent EMPTY = new AddtlConsent( 0, NONE, NONE );
+
+    public  final int   version;
+    private final int[] consented;
+    private final int[] disclosed;
+
+    private AddtlConsent( int version, int[] consented, int[] disclosed )
+    {
+        this.version   = version;
+        this.consented = consented;
+        this.disclosed = disclosed;
+    }
+
+    /**
+     * true if the user consented to the ATP with this ID
+     */
+    public boolean isConsented( int id )
+    {
+        return Arrays.binarySearch( consented, id ) >= 0;
+    }
+
+    /**
+     * true if the ATP with this ID was disclosed to the user (v2 only)
+     */
+    public boolean isDisclosed( int id )
+    {
+        return Arrays.binarySearch( disclosed, id ) >= 0;
+    }
+
+    /**
+     * number of consented ATPs
+     */
+    public int consentedCount()
+    {
+        return consented.length;
+    }
+
+    /**
+     * consented ATP ID at this index, in ascending order
+     */
+    public int consentedAt( int index )
+    {
+        return consented[index];
+    }
+
+    /**
+     * parse an AC string, returns EMPTY if the string is empty or malformed
+     */
+    public static AddtlConsent parse( String input )
+    {
+        if( input == null || input.isEmpty() )
+            return EMPTY;
+
+        int length = input.length();
+        int tilde  = input.indexOf( '~' );
+        if( tilde <= 0 )
+            return EMPTY;
+
+        int version = parseInt( input, 0, tilde );
+        if( version <= 0 )
+            return EMPTY;
+
+        // consented IDs up to the next '~'
+        int consentedEnd = input.indexOf( '~', tilde + 1 );
+        if( consentedEnd < 0 )
+            consentedEnd = length;
+        int[] consented = parseIds( input, tilde + 1, consentedEnd );
+
+        // v2 disclosed IDs: "~dv.9.21"
+        int[] disclosed = NONE;
+        if( version >= 2 && input.startsWith( "dv.", consentedEnd + 1 ) )
+            disclosed = parseIds( input, consentedEnd + 4, length );
+
+        return new AddtlConsent( version, consented, disclosed );
+    }
+
+    // parse a '.' separated list of IDs between from and to, invalid entries are ignored
+    private static int[] parseIds( String input, int from, int to )
+    {
+        if( from >= to )
+            return NONE;
+
+        // count the entries first so we allocate a single array
+        int count = 1;
+        for( int i=from; i<to; i++ )
+        {
+            if( input.charAt(i) == '.' )
+                count++;
+        }
+
+        int[] ids = new int[count];
+        int   n   = 0;
+        int   start = from;
+        for( int i=from; i<=to; i++ )
+        {
+            if( i == to || input.charAt(i) == '.' )
+            {
+                int id = parseInt( input, start, i );
+                if( id > 0 )
+                    ids[n++] = id;
+                start = i + 1;
+            }
+        }
+
+        if( n < count )
+            ids = Arrays.copyOf( ids, n );
+        Arrays.sort( ids );
+        return ids;
+    }
+
+    // parse a positive int between from and to, returns -1 if invalid
+    private static int parseInt( String input, int from, int to )
+    {
+        if( from >= to || to - from > 9 )
+            return -1;
+
+        int value = 0;
+        for( int i=from; i<to; i++ )
+        {
+            int digit = input.charAt(i) - '0';
+            if( digit < 0 || digit > 9 )
+                return -1;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
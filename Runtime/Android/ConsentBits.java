@@ -0,0 +1,76 @@
+package com.binouze;
+
+/**
+ * Helpers to decode the IABTCF "0101..." strings into bit masks.
+ * Bit N of a mask (or of a bitset) stands for the purpose/vendor with ID N (IDs are 1-based).
+ */
+final class ConsentBits
+{
+    static final long[] EMPTY = new long[0];
+
+    private ConsentBits() {}
+
+    /**
+     * build a mask from a list of purpose IDs
+     */
+    static long mask( int... ids )
+    {
+        long mask = 0;
+        for( int id : ids )
+            mask |= 1L << id;
+        return mask;
+    }
+
+    /**
+     * decode a purpose string (at most 63 purposes) into a mask
+     */
+    static long parseMask( String input )
+    {
+        long mask = 0;
+        int  len  = Math.min( input.length(), 63 );
+        for( int i=0; i<len; i++ )
+        {
+            if( input.charAt(i) == '1' )
+                mask |= 1L << (i+1);
+        }
+        return mask;
+    }
+
+    /**
+     * decode a vendor string into a bitset
+     */
+    static long[] parseBitSet( String input )
+    {
+        int len = input.length();
+        if( len == 0 )
+            return EMPTY;
+
+        long[] bits = new long[(len >>> 6) + 1];
+        for( int i=0; i<len; i++ )
+        {
+            if( input.charAt(i) == '1' )
+            {
+                int id = i+1;
+                bits[id >>> 6] |= 1L << id;
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * true if the bit for this ID is set
+     */
+    static boolean get( long[] bits, int id )
+    {
+        int word = id >>> 6;
+        return id > 0 && word < bits.length && (bits[word] & (1L << id)) != 0;
+    }
+
+    /**
+     * true if every bit of required is set in mask
+     */
+    static boolean hasAll( long mask, long required )
+    {
+        return (mask & required) == required;
+    }
+}
@@ -0,0 +1,173 @@
+package com.binouze;
+
+import android.content.Context;
+import android.util.Log;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Consent decisions of the previous launch.
+ * After each consent change, the packed flags and the consent status are saved with the hash of the TC string
+ * they were computed from. On the next launch the record is read on the background thread, and until
+ * requestConsentInfoUpdate succeeds it is used when the TC string still has the same hash.
+ * A record older than MAX_AGE_MS is ignored.
+ *
+ * File format (big endian): magic, version, flags, status, TC string hash (FNV-1a 64), save time in ms.
+ */
+final class ConsentCache
+{
+    private static final String TAG       = "GoogleUserMessagingPlatform::ConsentCache";
+    private static final String FILE_NAME = "google_ump_consent.bin";
+    private static final int    MAGIC     = 0x554D5043; // "UMPC"
+    private static final int    VERSION   = 1;
+
+    // the decisions of an app not launched for a month are not reused
+    static final long MAX_AGE_MS = 30L * 24 * 60 * 60 * 1000;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME  = 0x100000001b3L;
+
+    /**
+     * a saved record
+     */
+    static final class Record
+    {
+        final long flags;
+        final int  status;
+        final long tcHash;
+
+        Record( long flags, int status, long tcHash )
+        {
+            this.flags  = flags;
+            this.status = status;
+            this.tcHash = tcHash;
+        }
+
+        boolean canRequestAds()
+        {
+            return (flags & GoogleUserMessagingPlatform.FLAG_CAN_REQUEST_ADS) != 0;
+        }
+    }
+
+    private static          File    file;
+    // last record read or written, null if none
+    private static volatile Record  record;
+    private static          boolean loading = false;
+
+    private ConsentCache() {}
+
+    /**
+     * FNV-1a 64 of the chars of a TC string (they are all ASCII)
+     */
+    static long hash( CharSequence input )
+    {
+        long hash = FNV_OFFSET;
+        for( int i=0, len=input.length(); i<len; i++ )
+        {
+            hash ^= input.charAt(i) & 0xFF;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * read the record of the previous launch on the background thread
+     */
+    static void load( Context ctx )
+    {
+        synchronized( ConsentCache.class )
+        {
+            if( loading || ctx == null )
+                return;
+            loading = true;
+            file    = new File( ctx.getApplicationContext().getFilesDir(), FILE_NAME );
+        }
+        ConsentExecutor.execute( ConsentCache::read );
+    }
+
+    /**
+     * the record of the previous launch if it was computed from the TC string of this snapshot,
+     * null otherwise, if not read yet or if the snapshot is null (the TC string cannot be checked)
+     */
+    static Record get( ConsentSnapshot snapshot )
+    {
+        Record r = record;
+        return r != null && snapshot != null && r.tcHash == snapshot.tcHash ? r : null;
+    }
+
+    /**
+     * save the record if it changed, must be called on the background thread
+     */
+    static void save( long flags, int status, long tcHash )
+    {
+        File target;
+        synchronized( ConsentCache.class )
+        {
+            target = file;
+        }
+        if( target == null )
+            return;
+
+        Record r = record;
+        if( r != null && r.flags == flags && r.status == status && r.tcHash == tcHash )
+            return;
+        record = new Record( flags, status, tcHash );
+
+        // write to a temp file then rename, so a crash never leaves a partial record
+        File temp = new File( target.getPath() + ".tmp" );
+        try( DataOutputStream out = new DataOutputStream( new FileOutputStream( temp ) ) )
+        {
+            out.writeInt( MAGIC );
+            out.writeInt( VERSION );
+            out.writeLong( flags );
+            out.writeInt( status );
+            out.writeLong( tcHash );
+            out.writeLong( System.currentTimeMillis() );
+        }
+        catch( IOException e )
+        {
+            Log.e( TAG, TAG+":: save failed: " + e.getMessage() );
+            return;
+        }
+
+        if( !temp.renameTo( target ) )
+            Log.e( TAG, TAG+":: save failed: cannot rename " + temp.getName() );
+    }
+
+    private static void read()
+    {
+        File source;
+        synchronized( ConsentCache.class )
+        {
+            source = file;
+        }
+        if( !source.exists() )
+            return;
+
+        try( DataInputStream in = new DataInputStream( new FileInputStream( source ) ) )
+        {
+            if( in.readInt() != MAGIC || in.readInt() != VERSION )
+                return;
+
+            long flags   = in.readLong();
+            int  status  = in.readInt();
+            long tcHash  = in.readLong();
+            long savedAt = in.readLong();
+            // also rejects a save time in the future, the clock was changed
+            long age = System.currentTimeMillis() - savedAt;
+            if( age < 0 || age > MAX_AGE_MS )
+                return;
+            // a record saved during this launch is more recent
+            if( record == null )
+                record = new Record( flags, status, tcHash );
+        }
+        catch( IOException e )
+        {
+            Log.e( TAG, TAG+":: load failed: " + e.getMessage() );
+        }
+    }
+}
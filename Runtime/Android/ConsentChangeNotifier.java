@@ -0,0 +1,88 @@
+package com.binouze;
+
+import com.unity3d.player.UnityPlayer;
+
+/**
+ * Pushes consent changes to Unity.
+ * Every change notification (IABTCF_* keys, consent status, form availability) is debounced on the
+ * background thread so a burst of changes, like a CMP writing all its keys, produces a single event.
+ * The event only carries the flags that changed and the new packed flags (see GetConsentFlags).
+ */
+final class ConsentChangeNotifier
+{
+    // a CMP writes its keys one by one, wait for the burst to end
+    private static final long DEBOUNCE_MS = 150;
+
+    private static boolean started   = false;
+    private static boolean scheduled = false;
+    private static long    lastFlags = 0;
+
+    private ConsentChangeNotifier() {}
+
+    /**
+     * start sending the events to Unity, the current flags are the reference for the first diff
+     */
+    static void start()
+    {
+        synchronized( ConsentChangeNotifier.class )
+        {
+            if( started )
+                return;
+            started = true;
+        }
+
+        GDRPHelper.addSnapshotListener( snapshot -> notifyChanged() );
+        ConsentExecutor.execute( () -> lastFlags = GoogleUserMessagingPlatform.ConsentFlags() );
+    }
+
+    /**
+     * something that may change the consent flags happened
+     */
+    static void notifyChanged()
+    {
+        synchronized( ConsentChangeNotifier.class )
+        {
+            if( !started || scheduled )
+                return;
+            scheduled = true;
+        }
+
+        ConsentExecutor.schedule( ConsentChangeNotifier::flush, DEBOUNCE_MS );
+    }
+
+    // always called on the background thread
+    private static void flush()
+    {
+        synchronized( ConsentChangeNotifier.class )
+        {
+            scheduled = false;
+        }
+
+        // a getter may rebuild the snapshot meanwhile, everything below uses this one
+        ConsentSnapshot snapshot = GDRPHelper.getSnapshot();
+        long            flags    = GoogleUserMessagingPlatform.ConsentFlags( snapshot );
+        long            changed  = flags ^ lastFlags;
+
+        // only the decisions made after the consent info update are worth reusing on the next launch
+        if( GoogleUserMessagingPlatform.isConsentUpdated() )
+        {
+            int status = (int)(flags >>> GoogleUserMessagingPlatform.STATUS_SHIFT) & 0xFF;
+            ConsentCache.save( flags, status, snapshot.tcHash );
+        }
+        // the status is not in the snapshot, its changes are published from here
+        ConsentSnapshotFile.publish( flags, snapshot );
+
+        if( changed == 0 )
+            return;
+
+        // recorded before Unity is told, on this single writer thread
+        ConsentJournal.append( lastFlags, flags, snapshot.tcHash );
+        lastFlags = flags;
+        onFlagsChanged( changed, flags );
+    }
+
+    private static void onFlagsChanged( long changed, long flags )
+    {
+        UnityPlayer.UnitySendMessage( "GoogleUserMessagingPlatform", "OnConsentChangedMessage", changed + ";" + flags );
+    }
+}
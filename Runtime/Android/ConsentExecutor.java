@@ -0,0 +1,45 @@
+package com.binouze;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single background thread used by the plugin for disk I/O and delayed work,
+ * so nothing of that runs on the UI thread or on the Unity thread.
+ */
+final class ConsentExecutor
+{
+    private static final String THREAD_NAME = "GoogleUMP";
+
+    private static final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor( 1, runnable ->
+    {
+        Thread thread = new Thread( runnable, THREAD_NAME );
+        thread.setDaemon( true );
+        return thread;
+    });
+    static
+    {
+        executor.setRemoveOnCancelPolicy( true );
+    }
+
+    private ConsentExecutor() {}
+
+    static void execute( Runnable task )
+    {
+        executor.execute( task );
+    }
+
+    static ScheduledFuture<?> schedule( Runnable task, long delayMs )
+    {
+        return executor.schedule( task, delayMs, TimeUnit.MILLISECONDS );
+    }
+
+    /**
+     * true if called from the plugin background thread
+     */
+    static boolean isCurrentThread()
+    {
+        return THREAD_NAME.equals( Thread.currentThread().getName() );
+    }
+}
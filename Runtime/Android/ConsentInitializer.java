@@ -0,0 +1,30 @@
+package com.binouze;
+
+import android.content.Context;
+import androidx.startup.Initializer;
+import com.google.android.ump.ConsentInformation;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * androidx.startup entry point, declared by GoogleUserMessagingPlatform.androidlib.
+ * Runs with the Application context when the process starts, so the consent preferences are decoded and the
+ * consent information is ready before Unity creates its activity and calls Initialize.
+ *
+ * To opt out, remove the meta-data com.binouze.ConsentInitializer from the InitializationProvider
+ * with tools:node="remove": Initialize then does everything.
+ */
+public final class ConsentInitializer implements Initializer<ConsentInformation>
+{
+    @Override
+    public ConsentInformation create( Context context )
+    {
+        return GoogleUserMessagingPlatform.Prepare( context );
+    }
+
+    @Override
+    public List<Class<? extends Initializer<?>>> dependencies()
+    {
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,321 @@
+package com.binouze;
+
+import android.content.Context;
+import android.util.Log;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Append-only audit journal of the consent transitions, kept in at most SEGMENTS files of ENTRIES_PER_SEGMENT entries.
+ * ConsentChangeNotifier appends an entry on the background thread (the single writer) each time the consent decisions
+ * or the consent status change. A segment is preallocated when it is started, an append is a single positional write,
+ * and the oldest segment is deleted when a new one exceeds the limit. read streams the entries after a sequence number.
+ *
+ * Segment file journal-{first sequence, 16 hex digits}.bin, big endian:
+ *   header, 16 bytes: magic "UMPJ", version, first sequence
+ *   entries, 40 bytes: sequence (0 for a free slot), time in ms since the epoch, TC string hash,
+ *   consent flags (as GetConsentFlags), previous consent status, new consent status
+ */
+final class ConsentJournal
+{
+    private static final String TAG      = "GoogleUserMessagingPlatform::ConsentJournal";
+    private static final String DIR_NAME = "google_ump_journal";
+    private static final int    MAGIC    = 0x554D504A; // "UMPJ"
+    private static final int    VERSION  = 1;
+
+    private static final int HEADER_SIZE = 16;
+    private static final int ENTRY_SIZE  = 40;
+
+    static final int ENTRIES_PER_SEGMENT = 512;
+    static final int SEGMENTS            = 4;
+    // longs per entry in the result of read: sequence, time, TC hash, flags, previous status << 32 | new status
+    static final int ENTRY_LONGS         = 5;
+
+    private static final long[] NONE = new long[0];
+
+    // the consent decisions and the status, not the plugin state (form available, initialized, cached)
+    private static final long CONSENT_MASK = GoogleUserMessagingPlatform.FLAG_GDPR_APPLIES
+                                           | GoogleUserMessagingPlatform.FLAG_CAN_REQUEST_ADS
+                                           | GoogleUserMessagingPlatform.FLAG_CAN_SHOW_ADS
+                                           | GoogleUserMessagingPlatform.FLAG_CAN_SHOW_PERSONALIZED_ADS
+                                           | GoogleUserMessagingPlatform.FLAG_FIREBASE_AD_STORAGE
+                                           | GoogleUserMessagingPlatform.FLAG_FIREBASE_AD_USER_DATA
+                                           | GoogleUserMessagingPlatform.FLAG_FIREBASE_AD_PERSONALIZATION
+                                           | 0xFFL << GoogleUserMessagingPlatform.STATUS_SHIFT;
+
+    private static          File     directory;
+    private static          boolean  opened = false;
+    // last sequence written, read never returns entries past it
+    private static volatile long     lastSequence = 0;
+    // first sequence of each segment on disk, ascending
+    private static volatile long[]   segments     = NONE;
+
+    // -- writer, only used on the background thread
+    private static          RandomAccessFile segment;
+    private static          long             segmentFirst;
+    private static final    ByteBuffer       entry = ByteBuffer.allocate( ENTRY_SIZE );
+
+    private ConsentJournal() {}
+
+    /**
+     * find the last entry of the previous launches on the background thread
+     */
+    static void open( Context ctx )
+    {
+        synchronized( ConsentJournal.class )
+        {
+            if( opened || ctx == null )
+                return;
+            opened    = true;
+            directory = new File( ctx.getApplicationContext().getFilesDir(), DIR_NAME );
+        }
+        ConsentExecutor.execute( ConsentJournal::recover );
+    }
+
+    private static File directory()
+    {
+        synchronized( ConsentJournal.class )
+        {
+            return directory;
+        }
+    }
+
+    private static File segmentFile( File dir, long first )
+    {
+        return new File( dir, String.format( "journal-%016x.bin", first ) );
+    }
+
+    // -- WRITER -------------------------------------------------------------------------------------------------------
+
+    private static void recover()
+    {
+        File dir = directory();
+        if( !dir.isDirectory() && !dir.mkdirs() )
+        {
+            Log.e( TAG, TAG+":: cannot create " + dir.getName() );
+            return;
+        }
+
+        long[] found = NONE;
+        File[] files = dir.listFiles();
+        if( files != null )
+        {
+            found = new long[files.length];
+            int n = 0;
+            for( File file : files )
+            {
+                String name = file.getName();
+                if( name.startsWith( "journal-" ) && name.endsWith( ".bin" ) && name.length() == 28 )
+                {
+                    try
+                    {
+                        found[n++] = Long.parseLong( name.substring( 8, 24 ), 16 );
+                    }
+                    catch( NumberFormatException e )
+                    {
+                        // not a segment
+                    }
+                }
+            }
+            found = Arrays.copyOf( found, n );
+            Arrays.sort( found );
+        }
+        if( found.length == 0 )
+            return;
+
+        // the last written entry of the newest segment
+        long first = found[found.length - 1];
+        long last  = first - 1;
+        try( RandomAccessFile raf = new RandomAccessFile( segmentFile( dir, first ), "r" ) )
+        {
+            byte[] data = new byte[(int)Math.min( raf.length(), HEADER_SIZE + (long)ENTRIES_PER_SEGMENT * ENTRY_SIZE )];
+            raf.readFully( data );
+            ByteBuffer buffer = ByteBuffer.wrap( data );
+            if( buffer.getInt( 0 ) == MAGIC && buffer.getInt( 4 ) == VERSION )
+            {
+                // a slot that does not hold the expected sequence ends the segment
+                for( int i=0; HEADER_SIZE + (i + 1) * ENTRY_SIZE <= data.length; i++ )
+                {
+                    if( buffer.getLong( HEADER_SIZE + i * ENTRY_SIZE ) != first + i )
+                        break;
+                    last = first + i;
+                }
+            }
+        }
+        catch( IOException e )
+        {
+            Log.e( TAG, TAG+":: recover failed: " + e.getMessage() );
+        }
+
+        segments     = found;
+        lastSequence = last;
+    }
+
+    /**
+     * record a consent transition, must be called on the background thread.
+     * nothing is recorded if only the plugin state flags changed
+     */
+    static void append( long previousFlags, long flags, long tcHash )
+    {
+        if( directory() == null || ((previousFlags ^ flags) & CONSENT_MASK) == 0 )
+            return;
+
+        long sequence = lastSequence + 1;
+        try
+        {
+            if( segment == null || sequence >= segmentFirst + ENTRIES_PER_SEGMENT )
+                startSegment( sequence );
+
+            int previousStatus = (int)(previousFlags >>> GoogleUserMessagingPlatform.STATUS_SHIFT) & 0xFF;
+            int status         = (int)(flags         >>> GoogleUserMessagingPlatform.STATUS_SHIFT) & 0xFF;
+            entry.clear();
+            entry.putLong( sequence )
+                 .putLong( System.currentTimeMillis() )
+                 .putLong( tcHash )
+                 .putLong( flags )
+                 .putInt( previousStatus )
+                 .putInt( status );
+            entry.flip();
+            segment.getChannel().write( entry, HEADER_SIZE + (sequence - segmentFirst) * ENTRY_SIZE );
+            lastSequence = sequence;
+        }
+        catch( IOException e )
+        {
+            Log.e( TAG, TAG+":: append failed: " + e.getMessage() );
+            closeSegment();
+        }
+    }
+
+    // continue the newest segment if this sequence fits in it, otherwise start a new one
+    private static void startSegment( long sequence ) throws IOException
+    {
+        closeSegment();
+
+        File   dir   = directory();
+        long[] known = segments;
+        if( known.length > 0 )
+        {
+            long newest = known[known.length - 1];
+            if( sequence > newest && sequence < newest + ENTRIES_PER_SEGMENT )
+            {
+                segment      = new RandomAccessFile( segmentFile( dir, newest ), "rw" );
+                segmentFirst = newest;
+                return;
+            }
+            // no valid entry in it, rewritten below
+            if( sequence == newest )
+                known = Arrays.copyOf( known, known.length - 1 );
+        }
+
+        // preallocated: the header and every slot are written at once
+        ByteBuffer content = ByteBuffer.allocate( HEADER_SIZE + ENTRIES_PER_SEGMENT * ENTRY_SIZE );
+        content.putInt( MAGIC ).putInt( VERSION ).putLong( sequence );
+        content.clear();
+
+        RandomAccessFile raf = new RandomAccessFile( segmentFile( dir, sequence ), "rw" );
+        try
+        {
+            raf.setLength( 0 );
+            raf.getChannel().write( content, 0 );
+        }
+        catch( IOException e )
+        {
+            raf.close();
+            throw e;
+        }
+        segment      = raf;
+        segmentFirst = sequence;
+
+        // keep the last SEGMENTS segments
+        long[] updated = Arrays.copyOf( known, known.length + 1 );
+        updated[known.length] = sequence;
+        int drop = Math.max( 0, updated.length - SEGMENTS );
+        for( int i=0; i<drop; i++ )
+            segmentFile( dir, updated[i] ).delete();
+        segments = Arrays.copyOfRange( updated, drop, updated.length );
+    }
+
+    private static void closeSegment()
+    {
+        if( segment == null )
+            return;
+        try
+        {
+            segment.close();
+        }
+        catch( IOException e )
+        {
+            // nothing to flush, the writes are not buffered
+        }
+        segment = null;
+    }
+
+    // -- READER -------------------------------------------------------------------------------------------------------
+
+    /**
+     * at most max entries with a sequence above afterSequence, oldest first, ENTRY_LONGS longs per entry.
+     * the entries older than the oldest segment are lost, the result then starts at the oldest kept entry.
+     * reads the files on the calling thread, an empty result means there is nothing more to read
+     */
+    static long[] read( long afterSequence, int max )
+    {
+        File   dir   = directory();
+        long   last  = lastSequence;
+        long[] known = segments;
+        if( dir == null || known.length == 0 || max <= 0 )
+            return NONE;
+
+        long next = Math.max( afterSequence + 1, known[0] );
+        if( next > last )
+            return NONE;
+
+        int    count  = (int)Math.min( max, last - next + 1 );
+        long[] result = new long[count * ENTRY_LONGS];
+        int    n      = 0;
+        for( int i=0; i<known.length && n < count; i++ )
+        {
+            long first = known[i];
+            if( next >= first + ENTRIES_PER_SEGMENT )
+                continue;
+
+            int slots = (int)Math.min( count - n, first + ENTRIES_PER_SEGMENT - next );
+            try( RandomAccessFile raf = new RandomAccessFile( segmentFile( dir, first ), "r" ) )
+            {
+                byte[] data = new byte[slots * ENTRY_SIZE];
+                raf.seek( HEADER_SIZE + (next - first) * ENTRY_SIZE );
+                raf.readFully( data );
+
+                ByteBuffer buffer = ByteBuffer.wrap( data );
+                for( int slot=0; slot<slots; slot++ )
+                {
+                    if( buffer.getLong() != next )
+                        return Arrays.copyOf( result, n * ENTRY_LONGS );
+
+                    int at = n * ENTRY_LONGS;
+                    result[at]     = next;
+                    result[at + 1] = buffer.getLong();
+                    result[at + 2] = buffer.getLong();
+                    result[at + 3] = buffer.getLong();
+                    result[at + 4] = ((long)buffer.getInt() << 32) | (buffer.getInt() & 0xFFFFFFFFL);
+                    n++;
+                    next++;
+                }
+            }
+            catch( FileNotFoundException e )
+            {
+                // deleted by a rotation meanwhile, continue with the next segment
+                next = first + ENTRIES_PER_SEGMENT;
+            }
+            catch( IOException e )
+            {
+                Log.e( TAG, TAG+":: read failed: " + e.getMessage() );
+                break;
+            }
+        }
+        return n == count ? result : Arrays.copyOf( result, n * ENTRY_LONGS );
+    }
+}
@@ -0,0 +1,123 @@
+package com.binouze;
+
+import android.os.SystemClock;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Debug log of the bridge calls.
+ * Does nothing when disabled. When enabled, each call records a fixed size event
+ * (time, event id, argument, result) into a preallocated ring buffer: no string is built
+ * and nothing is written to logcat until Unity asks for a dump.
+ */
+final class ConsentLog
+{
+    // -- events
+    static final int GET_CAN_REQUEST_ADS             = 1;
+    static final int GET_CAN_SHOW_ADS                = 2;
+    static final int GET_CAN_SHOW_PERSONALIZED_ADS   = 3;
+    static final int GET_FIREBASE_AD_STORAGE         = 4;
+    static final int GET_FIREBASE_AD_PERSONALIZATION = 5;
+    static final int GET_FIREBASE_AD_USER_DATA       = 6;
+    static final int GET_GDPR_REQUIRED               = 7;
+    static final int GET_CONSENT_FLAGS               = 8;
+    static final int GET_CONSENT_FOR_VENDOR          = 9;
+    static final int GET_CONSENT_FOR_VENDORS         = 10;
+    static final int GET_CONSENT_FOR_ADDITIONAL      = 11;
+    static final int GET_CONSENT_FOR_ADDITIONALS     = 12;
+    static final int GET_POLICY                      = 13;
+    static final int GET_POLICIES                    = 14;
+    static final int GET_VENDOR_ALLOWED              = 15;
+    static final int GET_VENDORS_ALLOWED             = 16;
+    static final int GET_VENDOR_ALLOWED_FOR_PURPOSE  = 17;
+    static final int GET_VENDORS_ALLOWED_FOR_PURPOSE = 18;
+
+    private static final String[] NAMES = {
+        "",
+        "GetCanRequestAds",
+        "GetCanShowAds",
+        "GetCanShowPresonalizedAds",
+        "GetFirebase_ad_storage",
+        "GetFirebase_ad_personalization",
+        "GetFirebase_ad_user_data",
+        "GetGDPRRequired",
+        "GetConsentFlags",
+        "GetConsentForVendor",
+        "GetConsentForVendors",
+        "GetConsentForAdditional",
+        "GetConsentForAdditionals",
+        "GetPolicy",
+        "GetPolicies",
+        "GetVendorAllowed",
+        "GetVendorsAllowed",
+        "GetVendorAllowedForPurpose",
+        "GetVendorsAllowedForPurpose",
+    };
+
+    // must be a power of 2
+    private static final int CAPACITY = 512;
+    private static final int MASK     = CAPACITY - 1;
+
+    private static final long[]     times   = new long[CAPACITY];
+    private static final int[]      events  = new int[CAPACITY];
+    private static final long[]     args    = new long[CAPACITY];
+    private static final long[]     results = new long[CAPACITY];
+    private static final AtomicLong cursor  = new AtomicLong();
+
+    private static volatile boolean enabled = false;
+
+    private ConsentLog() {}
+
+    static void setEnabled( boolean flag )
+    {
+        enabled = flag;
+    }
+
+    static boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    static void record( int event, long arg, long result )
+    {
+        if( !enabled )
+            return;
+
+        int slot = (int)(cursor.getAndIncrement() & MASK);
+        times[slot]   = SystemClock.elapsedRealtime();
+        events[slot]  = event;
+        args[slot]    = arg;
+        results[slot] = result;
+    }
+
+    static void record( int event, long arg, boolean result )
+    {
+        record( event, arg, result ? 1 : 0 );
+    }
+
+    /**
+     * format the events still in the buffer, oldest first.
+     * events recorded during the dump may be missing or mixed
+     */
+    static String dump()
+    {
+        long end   = cursor.get();
+        long start = Math.max( 0, end - CAPACITY );
+
+        StringBuilder sb = new StringBuilder( (int)(end - start) * 48 );
+        for( long i=start; i<end; i++ )
+        {
+            int slot  = (int)(i & MASK);
+            int event = events[slot];
+            sb.append( times[slot] ).append( ' ' )
+              .append( event > 0 && event < NAMES.length ? NAMES[event] : Integer.toString( event ) ).append( ' ' )
+              .append( args[slot] ).append( ' ' )
+              .append( results[slot] ).append( '\n' );
+        }
+        return sb.toString();
+    }
+
+    static void clear()
+    {
+        cursor.set( 0 );
+    }
+}
@@ -0,0 +1,125 @@
+package com.binouze;
+
+import android.os.SystemClock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Timings of the consent lifecycle and call counters of the Unity bridge.
+ * Always enabled: every update is a lock-free atomic operation, times come from the monotonic clock.
+ * Unity gets everything at once as a long[] (see snapshot for the layout).
+ */
+final class ConsentMetrics
+{
+    // -- operations
+    static final int INFO_UPDATE = 0; // requestConsentInfoUpdate
+    static final int FORM_LOAD   = 1; // loadConsentForm
+    static final int FORM_SHOW   = 2; // consentForm.show until dismissed
+    static final int OPERATIONS  = 3;
+
+    // FormError codes are small ints (1 to 4), anything else is counted as 0
+    static final int ERROR_CODES = 8;
+    // bridge calls are identified by the ConsentLog event ids
+    static final int CALLS       = 32;
+
+    // -- snapshot layout
+    static final int LAYOUT_VERSION    = 2;
+    static final int OFFSET_VERSION    = 0;
+    static final int OFFSET_SINCE_INIT = 1;                                 // ns since Initialize
+    static final int OFFSET_FIRST_DONE = 2;                                 // per operation, ns since Initialize of the first success
+    static final int OFFSET_COUNT      = OFFSET_FIRST_DONE + OPERATIONS;    // per operation, number of completions
+    static final int OFFSET_LAST       = OFFSET_COUNT      + OPERATIONS;    // per operation, duration of the last completion in ns
+    static final int OFFSET_TOTAL      = OFFSET_LAST       + OPERATIONS;    // per operation, sum of the durations in ns
+    static final int OFFSET_CALLS      = OFFSET_TOTAL      + OPERATIONS;    // per bridge call, number of calls
+    static final int OFFSET_ERRORS     = OFFSET_CALLS      + CALLS;         // per operation then per FormError code
+    static final int SNAPSHOT_SIZE     = OFFSET_ERRORS     + OPERATIONS * ERROR_CODES;
+
+    private static final AtomicLong      initAt        = new AtomicLong();
+    private static final AtomicLongArray startedAt     = new AtomicLongArray( OPERATIONS );
+    private static final AtomicLongArray firstDoneAt   = new AtomicLongArray( OPERATIONS );
+    private static final AtomicLongArray counts        = new AtomicLongArray( OPERATIONS );
+    private static final AtomicLongArray lastDuration  = new AtomicLongArray( OPERATIONS );
+    private static final AtomicLongArray totalDuration = new AtomicLongArray( OPERATIONS );
+    private static final AtomicLongArray calls         = new AtomicLongArray( CALLS );
+    private static final AtomicLongArray errors        = new AtomicLongArray( OPERATIONS * ERROR_CODES );
+
+    private ConsentMetrics() {}
+
+    private static long now()
+    {
+        return SystemClock.elapsedRealtimeNanos();
+    }
+
+    /**
+     * Initialize was called, the milestones are relative to the first call
+     */
+    static void markInit()
+    {
+        initAt.compareAndSet( 0, now() );
+    }
+
+    static void begin( int operation )
+    {
+        startedAt.set( operation, now() );
+    }
+
+    static void success( int operation )
+    {
+        long end = finish( operation );
+        long init = initAt.get();
+        if( end != 0 && init != 0 )
+            firstDoneAt.compareAndSet( operation, 0, end - init );
+    }
+
+    static void error( int operation, int errorCode )
+    {
+        finish( operation );
+        int code = errorCode > 0 && errorCode < ERROR_CODES ? errorCode : 0;
+        errors.incrementAndGet( operation * ERROR_CODES + code );
+    }
+
+    // returns the end time, 0 if the operation was not started
+    private static long finish( int operation )
+    {
+        long start = startedAt.getAndSet( operation, 0 );
+        if( start == 0 )
+            return 0;
+
+        long end      = now();
+        long duration = end - start;
+        counts.incrementAndGet( operation );
+        lastDuration.set( operation, duration );
+        totalDuration.addAndGet( operation, duration );
+        return end;
+    }
+
+    static void countCall( int call )
+    {
+        if( call > 0 && call < CALLS )
+            calls.incrementAndGet( call );
+    }
+
+    /**
+     * every metric in a single array, see the OFFSET_* constants for the layout
+     */
+    static long[] snapshot()
+    {
+        long[] result = new long[SNAPSHOT_SIZE];
+        long   init   = initAt.get();
+
+        result[OFFSET_VERSION]    = LAYOUT_VERSION;
+        result[OFFSET_SINCE_INIT] = init != 0 ? now() - init : 0;
+        for( int op=0; op<OPERATIONS; op++ )
+        {
+            result[OFFSET_FIRST_DONE + op] = firstDoneAt.get( op );
+            result[OFFSET_COUNT      + op] = counts.get( op );
+            result[OFFSET_LAST       + op] = lastDuration.get( op );
+            result[OFFSET_TOTAL      + op] = totalDuration.get( op );
+        }
+        for( int call=0; call<CALLS; call++ )
+            result[OFFSET_CALLS + call] = calls.get( call );
+        for( int i=0; i<OPERATIONS * ERROR_CODES; i++ )
+            result[OFFSET_ERRORS + i] = errors.get( i );
+        return result;
+    }
+}
@@ -0,0 +1,129 @@
+package com.binouze;
+
+import java.util.Arrays;
+
+/**
+ * Policies registered by the app.
+ * Every policy is evaluated at once against a snapshot and the results are kept as a bitset (bit N = policy N),
+ * they are computed again when the snapshot changes or when a policy is registered, so a lookup is a field read.
+ * As for the built-in rules, a policy is always granted when GDPR does not apply.
+ */
+final class ConsentPolicies
+{
+    // results of every policy for a snapshot
+    private static final class Evaluation
+    {
+        final ConsentSnapshot snapshot;
+        final ConsentPolicy[] policies;
+        final long[]          results;
+
+        Evaluation( ConsentSnapshot snapshot, ConsentPolicy[] policies, long[] results )
+        {
+            this.snapshot = snapshot;
+            this.policies = policies;
+            this.results  = results;
+        }
+    }
+
+    private static final ConsentPolicy[] NONE = new ConsentPolicy[0];
+
+    // copy on write, indexed by policy ID
+    private static volatile ConsentPolicy[] policies   = NONE;
+    private static volatile Evaluation      evaluation = null;
+    private static          boolean         listening  = false;
+
+    private ConsentPolicies() {}
+
+    /**
+     * register a policy and returns its ID.
+     * registering again a name replaces its requirements and keeps its ID
+     */
+    static synchronized int register( String name, int[] purposesConsent, int[] purposesConsentOrLI, int[] vendors, int[] atps )
+    {
+        if( name == null || name.isEmpty() )
+            throw new IllegalArgumentException( "a policy needs a name" );
+
+        ConsentPolicy[] current = policies;
+        int id = current.length;
+        for( ConsentPolicy policy : current )
+        {
+            if( policy.name.equals( name ) )
+            {
+                id = policy.id;
+                break;
+            }
+        }
+
+        ConsentPolicy[] updated = Arrays.copyOf( current, Math.max( current.length, id + 1 ) );
+        updated[id] = ConsentPolicy.compile( id, name, purposesConsent, purposesConsentOrLI, vendors, atps );
+        policies    = updated;
+
+        // the results are computed again on the next lookup, or right now if the snapshot changes
+        if( !listening )
+        {
+            listening = true;
+            GDRPHelper.addSnapshotListener( ConsentPolicies::evaluate );
+        }
+        return id;
+    }
+
+    /**
+     * ID of a registered policy, -1 if not registered
+     */
+    static int find( String name )
+    {
+        for( ConsentPolicy policy : policies )
+        {
+            if( policy.name.equals( name ) )
+                return policy.id;
+        }
+        return -1;
+    }
+
+    /**
+     * true if the policy requirements are met, false if the policy is not registered
+     */
+    static boolean get( int id )
+    {
+        if( id < 0 )
+            return false;
+
+        long[] results = current().results;
+        int    word    = id >>> 6;
+        return word < results.length && (results[word] & (1L << id)) != 0;
+    }
+
+    /**
+     * results of every registered policy, bit N = policy N.
+     * the array is shared, do not modify it
+     */
+    static long[] getAll()
+    {
+        return current().results;
+    }
+
+    // the evaluation of the current snapshot and policies
+    private static Evaluation current()
+    {
+        ConsentSnapshot snapshot = GDRPHelper.getSnapshot();
+        Evaluation      e        = evaluation;
+        if( e == null || e.snapshot != snapshot || e.policies != policies )
+            e = evaluate( snapshot );
+        return e;
+    }
+
+    private static synchronized Evaluation evaluate( ConsentSnapshot snapshot )
+    {
+        ConsentPolicy[] current = policies;
+        long[]          results = new long[(current.length + 63) >>> 6];
+        for( ConsentPolicy policy : current )
+        {
+            if( !snapshot.gdprApplies || policy.matches( snapshot ) )
+                results[policy.id >>> 6] |= 1L << policy.id;
+        }
+
+        Evaluation e = new Evaluation( snapshot, current, results );
+        evaluation   = e;
+        return e;
+    }
+}
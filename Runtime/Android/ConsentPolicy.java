@@ -0,0 +1,119 @@
+package com.binouze;
+
+import java.util.Arrays;
+
+/**
+ * A consent requirement compiled to bitmasks: purposes that need the user consent, purposes that need
+ * the consent or a legitimate interest, vendors that need the consent and Google ATPs that need the consent.
+ * Evaluating it against a snapshot is a few AND on longs, plus a binary search per ATP.
+ */
+public final class ConsentPolicy
+{
+    private static final int[] NONE = new int[0];
+
+    public  final int    id;
+    public  final String name;
+
+    // bit N = purpose N
+    final long   consentMask;
+    final long   consentOrLIMask;
+    // bit N = vendor N, trailing empty words are trimmed
+    final long[] vendorMask;
+    // sorted ATP IDs
+    final int[]  atps;
+
+    private ConsentPolicy( int id, String name, long consentMask, long consentOrLIMask, long[] vendorMask, int[] atps )
+    {
+        this.id              = id;
+        this.name            = name;
+        this.consentMask     = consentMask;
+        this.consentOrLIMask = consentOrLIMask;
+        this.vendorMask      = vendorMask;
+        this.atps            = atps;
+    }
+
+    /**
+     * compile a policy, null arrays mean no requirement.
+     * purposes must be between 1 and 63, vendor and ATP IDs must be positive
+     */
+    public static ConsentPolicy compile( int id, String name, int[] purposesConsent, int[] purposesConsentOrLI, int[] vendors, int[] atps )
+    {
+        long consentMask     = purposeMask( purposesConsent, name );
+        long consentOrLIMask = purposeMask( purposesConsentOrLI, name );
+
+        long[] vendorMask = ConsentBits.EMPTY;
+        if( vendors != null && vendors.length > 0 )
+        {
+            int max = 0;
+            for( int vendor : vendors )
+            {
+                if( vendor <= 0 )
+                    throw new IllegalArgumentException( "invalid vendor ID " + vendor + " in policy " + name );
+                max = Math.max( max, vendor );
+            }
+
+            vendorMask = new long[(max >>> 6) + 1];
+            for( int vendor : vendors )
+                vendorMask[vendor >>> 6] |= 1L << vendor;
+        }
+
+        int[] sortedAtps = NONE;
+        if( atps != null && atps.length > 0 )
+        {
+            sortedAtps = atps.clone();
+            Arrays.sort( sortedAtps );
+            if( sortedAtps[0] <= 0 )
+                throw new IllegalArgumentException( "invalid ATP ID " + sortedAtps[0] + " in policy " + name );
+        }
+
+        return new ConsentPolicy( id, name, consentMask, consentOrLIMask, vendorMask, sortedAtps );
+    }
+
+    private static long purposeMask( int[] purposes, String name )
+    {
+        if( purposes == null )
+            return 0;
+
+        for( int purpose : purposes )
+        {
+            if( purpose <= 0 || purpose > 63 )
+                throw new IllegalArgumentException( "invalid purpose " + purpose + " in policy " + name );
+        }
+        return ConsentBits.mask( purposes );
+    }
+
+    /**
+     * true if the purposes requirements are met, vendors and ATPs are not checked
+     */
+    boolean matchesPurposes( long purposeConsent, long purposeLI )
+    {
+        return ConsentBits.hasAll( purposeConsent, consentMask ) &&
+               ConsentBits.hasAll( purposeConsent | purposeLI, consentOrLIMask );
+    }
+
+    /**
+     * true if every requirement is met by the decoded consent, the gdprApplies flag is not checked
+     */
+    public boolean matches( ConsentSnapshot snapshot )
+    {
+        if( !matchesPurposes( snapshot.purposeConsentMask, snapshot.purposeLIMask ) )
+            return false;
+
+        long[] vendorBits = snapshot.vendorConsentBits;
+        for( int i=0; i<vendorMask.length; i++ )
+        {
+            long required = vendorMask[i];
+            long granted  = i < vendorBits.length ? vendorBits[i] : 0;
+            if( (granted & required) != required )
+                return false;
+        }
+
+        AddtlConsent addtlConsent = snapshot.addtlConsentIndex;
+        for( int atp : atps )
+        {
+            if( !addtlConsent.isConsented( atp ) )
+                return false;
+        }
+        return true;
+    }
+}
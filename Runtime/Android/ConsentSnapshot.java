@@ -0,0 +1,108 @@
+package com.binouze;
+
+import android.content.SharedPreferences;
+
+/**
+ * Immutable view of the IABTCF_* preferences.
+ * Built once by GDRPHelper and rebuilt only when one of the IABTCF_* keys changes,
+ * so every getter is a plain field read.
+ */
+public final class ConsentSnapshot
+{
+    public final boolean gdprApplies;
+
+    // raw TCF strings as stored by the CMP
+    public final String  purposeConsents;
+    public final String  purposeLI;
+    public final String  vendorConsents;
+    public final String  vendorLI;
+    public final String  addtlConsent;
+    public final String  tcString;
+
+    // timestamps of the TC string in milliseconds, 0 if not available
+    public final long    tcCreated;
+    public final long    tcLastUpdated;
+    // date the TC string must be removed at, in milliseconds, 0 if not available
+    public final long    tcExpiresAt;
+    // FNV-1a 64 of the TC string, identifies the consent the decisions were computed from
+    public final long    tcHash;
+
+    // decoded purposes (bit N = purpose N) and vendors (bit N = vendor N)
+    public final long    purposeConsentMask;
+    public final long    purposeLIMask;
+    // bit N = special feature N
+    public final long    specialFeatureMask;
+    final        long[]  vendorConsentBits;
+    final        long[]  vendorLIBits;
+
+    // parsed IABTCF_AddtlConsent
+    public final AddtlConsent addtlConsentIndex;
+
+    // precomputed decisions
+    public final boolean canShowAds;
+    public final boolean canShowPersonalizedAds;
+    public final boolean firebaseAdStorage;
+    public final boolean firebaseAdPersonalization;
+    public final boolean firebaseAdUserData;
+
+    ConsentSnapshot( SharedPreferences prefs, TCStringDecoder decoder )
+    {
+        gdprApplies     = prefs.getInt("IABTCF_gdprApplies", 0) == 1;
+        purposeConsents = prefs.getString("IABTCF_PurposeConsents", "");
+        purposeLI       = prefs.getString("IABTCF_PurposeLegitimateInterests", "");
+        vendorConsents  = prefs.getString("IABTCF_VendorConsents", "");
+        vendorLI        = prefs.getString("IABTCF_VendorLegitimateInterests", "");
+        addtlConsent    = prefs.getString("IABTCF_AddtlConsent", "");
+        tcString        = prefs.getString("IABTCF_TCString", "");
+        tcHash          = ConsentCache.hash( tcString );
+
+        // the compact TC string is cheaper to decode than the expanded vendor strings,
+        // the expanded strings are only used when it is missing or invalid
+        TCString tc = new TCString();
+        if( decoder.decode( tcString, tc ) )
+        {
+            tcCreated          = tc.created;
+            tcLastUpdated      = tc.lastUpdated;
+            purposeConsentMask = tc.purposesConsent;
+            purposeLIMask      = tc.purposesLITransparency;
+            specialFeatureMask = tc.specialFeatureOptIns;
+            vendorConsentBits  = tc.vendorConsents;
+            vendorLIBits       = tc.vendorLI;
+        }
+        else
+        {
+            tcCreated          = 0;
+            tcLastUpdated      = 0;
+            purposeConsentMask = ConsentBits.parseMask( purposeConsents );
+            purposeLIMask      = ConsentBits.parseMask( purposeLI );
+            specialFeatureMask = ConsentBits.parseMask( prefs.getString("IABTCF_SpecialFeaturesOptIns", "") );
+            vendorConsentBits  = ConsentBits.parseBitSet( vendorConsents );
+            vendorLIBits       = ConsentBits.parseBitSet( vendorLI );
+        }
+
+        tcExpiresAt       = tcCreated > 0 ? tcCreated + TCStringExpiry.MAX_AGE_MS : 0;
+        addtlConsentIndex = AddtlConsent.parse( addtlConsent );
+
+        canShowAds                = GDRPHelper.ADS.matchesPurposes( purposeConsentMask, purposeLIMask );
+        canShowPersonalizedAds    = GDRPHelper.PERSONALIZED_ADS.matchesPurposes( purposeConsentMask, purposeLIMask );
+        firebaseAdStorage         = GDRPHelper.FIREBASE_AD_STORAGE.matchesPurposes( purposeConsentMask, purposeLIMask );
+        firebaseAdPersonalization = GDRPHelper.FIREBASE_AD_PERSONALIZATION.matchesPurposes( purposeConsentMask, purposeLIMask );
+        firebaseAdUserData        = GDRPHelper.FIREBASE_AD_USER_DATA.matchesPurposes( purposeConsentMask, purposeLIMask );
+    }
+
+    /**
+     * true if the user consented to the vendor with this ID
+     */
+    public boolean hasVendorConsent( int vendorID )
+    {
+        return ConsentBits.get( vendorConsentBits, vendorID );
+    }
+
+    /**
+     * true if the legitimate interest is established for the vendor with this ID
+     */
+    public boolean hasVendorLI( int vendorID )
+    {
+        return ConsentBits.get( vendorLIBits, vendorID );
+    }
+}
@@ -0,0 +1,113 @@
+package com.binouze;
+
+import android.content.Context;
+import android.util.Log;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Publishes the decoded consent state in a memory-mapped file, so the SDKs running in other processes of the app
+ * can read it without SharedPreferences (not multi-process safe) nor IPC, see ConsentSnapshotReader.
+ * The same state goes to ConsentStateBuffer for Unity.
+ * Written on the background thread after every snapshot or consent flags change, see ConsentSnapshotLayout
+ * for the format.
+ */
+final class ConsentSnapshotFile
+{
+    private static final String TAG = "GoogleUserMessagingPlatform::ConsentSnapshotFile";
+
+    static final String FILE_NAME = "google_ump_consent.snapshot";
+
+    private static          File            file;
+    private static          boolean         opened = false;
+
+    // -- only used on the background thread
+    private static          ByteBuffer      mapped;
+    private static          boolean         failed = false;
+    private static final    ByteBuffer      body   = ConsentSnapshotLayout.allocateBody();
+    private static final    CRC32           crc    = new CRC32();
+    // what was published last
+    private static          ConsentSnapshot lastSnapshot;
+    private static          long            lastFlags;
+
+    private ConsentSnapshotFile() {}
+
+    /**
+     * publish the current state now and after every snapshot change
+     */
+    static void open( Context ctx )
+    {
+        synchronized( ConsentSnapshotFile.class )
+        {
+            if( opened || ctx == null )
+                return;
+            opened = true;
+            file   = new File( ctx.getApplicationContext().getFilesDir(), FILE_NAME );
+        }
+
+        GDRPHelper.addSnapshotListener( snapshot -> ConsentExecutor.execute( ConsentSnapshotFile::publishCurrent ) );
+        ConsentExecutor.execute( ConsentSnapshotFile::publishCurrent );
+    }
+
+    private static void publishCurrent()
+    {
+        ConsentSnapshot snapshot = GDRPHelper.getSnapshot();
+        publish( GoogleUserMessagingPlatform.ConsentFlags( snapshot ), snapshot );
+    }
+
+    /**
+     * publish this state to Unity and the other processes if it changed, must be called on the background thread
+     */
+    static void publish( long flags, ConsentSnapshot snapshot )
+    {
+        if( snapshot == lastSnapshot && flags == lastFlags )
+            return;
+
+        ConsentSnapshotLayout.encode( body, flags, snapshot );
+        // the Unity view first, it does not depend on the disk
+        ConsentSnapshotLayout.publish( ConsentStateBuffer.get(), body, crc );
+        lastSnapshot = snapshot;
+        lastFlags    = flags;
+
+        ByteBuffer target = map();
+        if( target != null )
+            ConsentSnapshotLayout.publish( target, body, crc );
+    }
+
+    private static ByteBuffer map()
+    {
+        if( mapped != null || failed )
+            return mapped;
+
+        File target;
+        synchronized( ConsentSnapshotFile.class )
+        {
+            target = file;
+        }
+        if( target == null )
+            return null;
+
+        // the mapping stays valid after the channel is closed
+        try( RandomAccessFile raf = new RandomAccessFile( target, "rw" ); FileChannel channel = raf.getChannel() )
+        {
+            if( raf.length() != ConsentSnapshotLayout.SIZE )
+                raf.setLength( ConsentSnapshotLayout.SIZE );
+
+            ByteBuffer buffer = channel.map( FileChannel.MapMode.READ_WRITE, 0, ConsentSnapshotLayout.SIZE ).order( ByteOrder.LITTLE_ENDIAN );
+            ConsentSnapshotLayout.initHeader( buffer );
+            mapped = buffer;
+        }
+        catch( IOException e )
+        {
+            // not retried, the other processes keep reading the last published state
+            failed = true;
+            Log.e( TAG, TAG+":: cannot map " + target.getName() + ": " + e.getMessage() );
+        }
+        return mapped;
+    }
+}
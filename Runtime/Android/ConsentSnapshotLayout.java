@@ -0,0 +1,161 @@
+package com.binouze;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32;
+
+/**
+ * Fixed binary layout of the published consent state, read by other processes (ConsentSnapshotReader).
+ * Every value is little endian at a fixed offset:
+ *
+ *   0    int   magic "UMPS"
+ *   4    int   layout version
+ *   8    long  sequence, odd while the body is written, 0 if nothing was published yet
+ *   16   int   CRC32 of the body
+ *   20   int   body size
+ *   body:
+ *   24   long  flags, as packed by GetConsentFlags (consent status in the bits 32 to 39)
+ *   32   long  purposes consented (bit N = purpose N)
+ *   40   long  purposes under legitimate interest
+ *   48   long  special features opted in
+ *   56   long  FNV-1a 64 hash of the TC string
+ *   64   long  time of the publication, in ms since the epoch
+ *   72   int   highest vendor ID with a consent or a legitimate interest (may be above the capacity)
+ *   76   int   highest consented ATP ID (may be above the capacity)
+ *   80   vendor consents, bitset of VENDOR_CAPACITY bits (bit N = vendor N)
+ *   592  vendor legitimate interests, bitset of VENDOR_CAPACITY bits
+ *   1104 consented ATPs (Google additional consent), bitset of ATP_CAPACITY bits
+ *
+ * A writer sets an odd sequence, writes the body and its CRC, then sets the next even sequence.
+ * A reader copies the body and accepts it if the sequence was even and did not change and the CRC matches.
+ */
+final class ConsentSnapshotLayout
+{
+    static final int MAGIC          = 0x53504D55; // "UMPS" once written little endian
+    static final int LAYOUT_VERSION = 1;
+
+    static final int VENDOR_CAPACITY = 4096;
+    static final int ATP_CAPACITY    = 8192;
+
+    // -- header
+    static final int OFFSET_MAGIC     = 0;
+    static final int OFFSET_VERSION   = 4;
+    static final int OFFSET_SEQUENCE  = 8;
+    static final int OFFSET_CRC       = 16;
+    static final int OFFSET_BODY_SIZE = 20;
+    static final int OFFSET_BODY      = 24;
+
+    // -- body
+    static final int OFFSET_FLAGS            = 24;
+    static final int OFFSET_PURPOSE_CONSENT  = 32;
+    static final int OFFSET_PURPOSE_LI       = 40;
+    static final int OFFSET_SPECIAL_FEATURES = 48;
+    static final int OFFSET_TC_HASH          = 56;
+    static final int OFFSET_WRITTEN_AT       = 64;
+    static final int OFFSET_MAX_VENDOR_ID    = 72;
+    static final int OFFSET_MAX_ATP_ID       = 76;
+    static final int OFFSET_VENDOR_CONSENT   = 80;
+    static final int OFFSET_VENDOR_LI        = OFFSET_VENDOR_CONSENT + VENDOR_CAPACITY / 8;
+    static final int OFFSET_ATP              = OFFSET_VENDOR_LI      + VENDOR_CAPACITY / 8;
+
+    static final int SIZE      = OFFSET_ATP + ATP_CAPACITY / 8;
+    static final int BODY_SIZE = SIZE - OFFSET_BODY;
+
+    private ConsentSnapshotLayout() {}
+
+    /**
+     * a body buffer for encode, offsets are the ones of the layout minus OFFSET_BODY
+     */
+    static ByteBuffer allocateBody()
+    {
+        return ByteBuffer.allocate( BODY_SIZE ).order( ByteOrder.LITTLE_ENDIAN );
+    }
+
+    /**
+     * write the header of an empty state, keeps the sequence if the buffer already holds this layout
+     */
+    static void initHeader( ByteBuffer target )
+    {
+        if( target.getInt( OFFSET_MAGIC ) != MAGIC || target.getInt( OFFSET_VERSION ) != LAYOUT_VERSION )
+        {
+            target.putLong( OFFSET_SEQUENCE, 0 );
+            target.putInt( OFFSET_VERSION, LAYOUT_VERSION );
+            target.putInt( OFFSET_MAGIC, MAGIC );
+        }
+        target.putInt( OFFSET_BODY_SIZE, BODY_SIZE );
+        // a writer killed in the middle of a publication left an odd sequence
+        long sequence = target.getLong( OFFSET_SEQUENCE );
+        if( (sequence & 1) != 0 )
+            target.putLong( OFFSET_SEQUENCE, sequence + 1 );
+    }
+
+    /**
+     * encode the state into a body buffer from allocateBody
+     */
+    static void encode( ByteBuffer body, long flags, ConsentSnapshot snapshot )
+    {
+        // the bitsets are partly written, clear them first
+        for( int i=0; i<BODY_SIZE; i+=8 )
+            body.putLong( i, 0 );
+
+        body.putLong( OFFSET_FLAGS            - OFFSET_BODY, flags );
+        body.putLong( OFFSET_PURPOSE_CONSENT  - OFFSET_BODY, snapshot.purposeConsentMask );
+        body.putLong( OFFSET_PURPOSE_LI       - OFFSET_BODY, snapshot.purposeLIMask );
+        body.putLong( OFFSET_SPECIAL_FEATURES - OFFSET_BODY, snapshot.specialFeatureMask );
+        body.putLong( OFFSET_TC_HASH          - OFFSET_BODY, snapshot.tcHash );
+        body.putLong( OFFSET_WRITTEN_AT       - OFFSET_BODY, System.currentTimeMillis() );
+
+        int maxVendorId = Math.max( putBits( body, OFFSET_VENDOR_CONSENT - OFFSET_BODY, snapshot.vendorConsentBits ),
+                                    putBits( body, OFFSET_VENDOR_LI      - OFFSET_BODY, snapshot.vendorLIBits ) );
+        body.putInt( OFFSET_MAX_VENDOR_ID - OFFSET_BODY, maxVendorId );
+
+        AddtlConsent atps     = snapshot.addtlConsentIndex;
+        int          maxAtpId = 0;
+        int          atpBase  = OFFSET_ATP - OFFSET_BODY;
+        for( int i=0, count=atps.consentedCount(); i<count; i++ )
+        {
+            int id   = atps.consentedAt( i );
+            maxAtpId = id;
+            if( id < ATP_CAPACITY )
+            {
+                int offset = atpBase + (id >>> 6) * 8;
+                body.putLong( offset, body.getLong( offset ) | 1L << id );
+            }
+        }
+        body.putInt( OFFSET_MAX_ATP_ID - OFFSET_BODY, maxAtpId );
+    }
+
+    // write a bitset truncated to VENDOR_CAPACITY bits, returns the highest ID set
+    private static int putBits( ByteBuffer body, int offset, long[] bits )
+    {
+        int words = Math.min( bits.length, VENDOR_CAPACITY / 64 );
+        for( int i=0; i<words; i++ )
+            body.putLong( offset + i * 8, bits[i] );
+
+        for( int i=bits.length - 1; i>=0; i-- )
+        {
+            if( bits[i] != 0 )
+                return i * 64 + 63 - Long.numberOfLeadingZeros( bits[i] );
+        }
+        return 0;
+    }
+
+    /**
+     * copy an encoded body into the target with the sequence protocol, single writer only
+     */
+    static void publish( ByteBuffer target, ByteBuffer body, CRC32 crc )
+    {
+        crc.reset();
+        crc.update( body.array(), body.arrayOffset(), BODY_SIZE );
+
+        long sequence = target.getLong( OFFSET_SEQUENCE );
+        target.putLong( OFFSET_SEQUENCE, sequence + 1 );
+
+        ByteBuffer out = target.duplicate();
+        out.position( OFFSET_BODY );
+        out.put( body.array(), body.arrayOffset(), BODY_SIZE );
+        target.putInt( OFFSET_CRC, (int)crc.getValue() );
+
+        target.putLong( OFFSET_SEQUENCE, sequence + 2 );
+    }
+}
@@ -0,0 +1,216 @@
+package com.binouze;
+
+import android.content.Context;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Reads the consent state published by the plugin, from any process of the app.
+ * The state file is memory-mapped read-only, a refresh is a copy of a few KB checked with a sequence counter
+ * and a CRC: no IPC, no SharedPreferences. The values are the ones of the last successful refresh.
+ *
+ * <pre>
+ * ConsentSnapshotReader reader = ConsentSnapshotReader.open( context );
+ * if( reader.refresh() &amp;&amp; reader.hasVendorConsent( 755 ) ) ...
+ * </pre>
+ *
+ * Vendor IDs from 4096 and ATP IDs from 8192 are not published, use getMaxVendorId and getMaxAtpId
+ * to know if the state was truncated.
+ */
+public final class ConsentSnapshotReader
+{
+    // a writer holds the sequence odd for a few microseconds
+    private static final int MAX_ATTEMPTS = 100;
+
+    private final ByteBuffer source;
+    private final CRC32      crc = new CRC32();
+    // last consistent copy and the one being filled, swapped after each successful copy
+    private       ByteBuffer current;
+    private       ByteBuffer scratch;
+    private       long       sequence = 0;
+
+    ConsentSnapshotReader( ByteBuffer source )
+    {
+        this.source  = source.duplicate().order( ByteOrder.LITTLE_ENDIAN );
+        this.current = ConsentSnapshotLayout.allocateBody();
+        this.scratch = ConsentSnapshotLayout.allocateBody();
+    }
+
+    /**
+     * map the state file of the app, throws if the plugin never published it
+     */
+    public static ConsentSnapshotReader open( Context context ) throws IOException
+    {
+        return open( new File( context.getApplicationContext().getFilesDir(), ConsentSnapshotFile.FILE_NAME ) );
+    }
+
+    public static ConsentSnapshotReader open( File file ) throws IOException
+    {
+        // the mapping stays valid after the channel is closed
+        try( RandomAccessFile raf = new RandomAccessFile( file, "r" ); FileChannel channel = raf.getChannel() )
+        {
+            if( channel.size() < ConsentSnapshotLayout.SIZE )
+                throw new IOException( "truncated consent state file" );
+
+            ByteBuffer buffer = channel.map( FileChannel.MapMode.READ_ONLY, 0, ConsentSnapshotLayout.SIZE ).order( ByteOrder.LITTLE_ENDIAN );
+            if( buffer.getInt( ConsentSnapshotLayout.OFFSET_MAGIC ) != ConsentSnapshotLayout.MAGIC ||
+                buffer.getInt( ConsentSnapshotLayout.OFFSET_VERSION ) != ConsentSnapshotLayout.LAYOUT_VERSION )
+                throw new IOException( "not a consent state file" );
+
+            return new ConsentSnapshotReader( buffer );
+        }
+    }
+
+    /**
+     * copy the last published state if it changed, returns false if nothing was published yet
+     * or if no consistent copy could be made (the values of the previous refresh are kept)
+     */
+    public synchronized boolean refresh()
+    {
+        for( int attempt=0; attempt<MAX_ATTEMPTS; attempt++ )
+        {
+            long before = source.getLong( ConsentSnapshotLayout.OFFSET_SEQUENCE );
+            if( before == 0 )
+                return false;
+            if( before == sequence )
+                return true;
+            if( (before & 1) != 0 )
+            {
+                Thread.yield();
+                continue;
+            }
+
+            int        expected = source.getInt( ConsentSnapshotLayout.OFFSET_CRC );
+            ByteBuffer in       = source.duplicate();
+            in.position( ConsentSnapshotLayout.OFFSET_BODY );
+            in.get( scratch.array(), scratch.arrayOffset(), ConsentSnapshotLayout.BODY_SIZE );
+
+            // changed while copying, or torn between the body and the CRC
+            if( source.getLong( ConsentSnapshotLayout.OFFSET_SEQUENCE ) != before )
+                continue;
+            crc.reset();
+            crc.update( scratch.array(), scratch.arrayOffset(), ConsentSnapshotLayout.BODY_SIZE );
+            if( (int)crc.getValue() != expected )
+                continue;
+
+            ByteBuffer copied = scratch;
+            scratch  = current;
+            current  = copied;
+            sequence = before;
+            return true;
+        }
+        return sequence != 0;
+    }
+
+    /**
+     * sequence of the state read by the last refresh, 0 if none. it increases at each publication
+     */
+    public synchronized long getSequence()
+    {
+        return sequence;
+    }
+
+    // -- values of the last refresh
+
+    private long getLong( int offset )
+    {
+        return current.getLong( offset - ConsentSnapshotLayout.OFFSET_BODY );
+    }
+
+    private boolean getBit( int offset, int capacity, int id )
+    {
+        if( id <= 0 || id >= capacity )
+            return false;
+        return (getLong( offset + (id >>> 6) * 8 ) & (1L << id)) != 0;
+    }
+
+    /**
+     * consent flags, as returned by GoogleUserMessagingPlatform.GetConsentFlags
+     */
+    public synchronized long getFlags()
+    {
+        return getLong( ConsentSnapshotLayout.OFFSET_FLAGS );
+    }
+
+    /**
+     * consent status (ConsentInformation.ConsentStatus)
+     */
+    public synchronized int getStatus()
+    {
+        return (int)(getFlags() >>> GoogleUserMessagingPlatform.STATUS_SHIFT) & 0xFF;
+    }
+
+    public synchronized boolean gdprApplies()
+    {
+        return (getFlags() & GoogleUserMessagingPlatform.FLAG_GDPR_APPLIES) != 0;
+    }
+
+    public synchronized boolean canRequestAds()
+    {
+        return (getFlags() & GoogleUserMessagingPlatform.FLAG_CAN_REQUEST_ADS) != 0;
+    }
+
+    public synchronized boolean hasPurposeConsent( int purpose )
+    {
+        return purpose > 0 && purpose < 64 && (getLong( ConsentSnapshotLayout.OFFSET_PURPOSE_CONSENT ) & (1L << purpose)) != 0;
+    }
+
+    public synchronized boolean hasPurposeLI( int purpose )
+    {
+        return purpose > 0 && purpose < 64 && (getLong( ConsentSnapshotLayout.OFFSET_PURPOSE_LI ) & (1L << purpose)) != 0;
+    }
+
+    public synchronized boolean hasSpecialFeatureOptIn( int feature )
+    {
+        return feature > 0 && feature < 64 && (getLong( ConsentSnapshotLayout.OFFSET_SPECIAL_FEATURES ) & (1L << feature)) != 0;
+    }
+
+    public synchronized boolean hasVendorConsent( int vendorID )
+    {
+        return getBit( ConsentSnapshotLayout.OFFSET_VENDOR_CONSENT, ConsentSnapshotLayout.VENDOR_CAPACITY, vendorID );
+    }
+
+    public synchronized boolean hasVendorLI( int vendorID )
+    {
+        return getBit( ConsentSnapshotLayout.OFFSET_VENDOR_LI, ConsentSnapshotLayout.VENDOR_CAPACITY, vendorID );
+    }
+
+    /**
+     * true if the user consented to this Google additional consent ATP
+     */
+    public synchronized boolean isAtpConsented( int atpID )
+    {
+        return getBit( ConsentSnapshotLayout.OFFSET_ATP, ConsentSnapshotLayout.ATP_CAPACITY, atpID );
+    }
+
+    /**
+     * FNV-1a 64 hash of the TC string the state was decoded from
+     */
+    public synchronized long getTCHash()
+    {
+        return getLong( ConsentSnapshotLayout.OFFSET_TC_HASH );
+    }
+
+    /**
+     * time of the publication, in ms since the epoch
+     */
+    public synchronized long getWrittenAt()
+    {
+        return getLong( ConsentSnapshotLayout.OFFSET_WRITTEN_AT );
+    }
+
+    public synchronized int getMaxVendorId()
+    {
+        return current.getInt( ConsentSnapshotLayout.OFFSET_MAX_VENDOR_ID - ConsentSnapshotLayout.OFFSET_BODY );
+    }
+
+    public synchronized int getMaxAtpId()
+    {
+        return current.getInt( ConsentSnapshotLayout.OFFSET_MAX_ATP_ID - ConsentSnapshotLayout.OFFSET_BODY );
+    }
+}
@@ -0,0 +1,82 @@
+package com.binouze;
+
+import com.google.android.ump.ConsentForm;
+import com.google.android.ump.ConsentInformation;
+
+/**
+ * Immutable state of the consent lifecycle.
+ * GoogleUserMessagingPlatform keeps the current one in an AtomicReference: the UI thread callbacks publish a new
+ * state, the getters read every value from the same state without lock and from any thread.
+ */
+final class ConsentState
+{
+    enum Phase
+    {
+        UNINITIALIZED, // Initialize not called yet
+        UPDATING,      // requestConsentInfoUpdate in flight
+        FORM_LOADING,  // loadConsentForm in flight
+        READY,         // consent info updated, form loaded if one is available
+        ERROR          // the last info update or form load failed, the status is the last known one
+    }
+
+    static final ConsentState INITIAL = new ConsentState( Phase.UNINITIALIZED, null, null, false, false, ConsentInformation.ConsentStatus.UNKNOWN, false );
+
+    final Phase              phase;
+    // never null once initialized
+    final ConsentInformation information;
+    // loaded form waiting to be shown, null if none
+    final ConsentForm        form;
+    // true once requestConsentInfoUpdate succeeded, before that the status comes from the previous session
+    final boolean            updated;
+    final boolean            formAvailable;
+    final int                status;
+    final boolean            canRequestAds;
+
+    private ConsentState( Phase phase, ConsentInformation information, ConsentForm form, boolean updated, boolean formAvailable, int status, boolean canRequestAds )
+    {
+        this.phase         = phase;
+        this.information   = information;
+        this.form          = form;
+        this.updated       = updated;
+        this.formAvailable = formAvailable;
+        this.status        = status;
+        this.canRequestAds = canRequestAds;
+    }
+
+    boolean isInitialized()
+    {
+        return phase != Phase.UNINITIALIZED;
+    }
+
+    ConsentState withPhase( Phase phase )
+    {
+        return new ConsentState( phase, information, form, updated, formAvailable, status, canRequestAds );
+    }
+
+    /**
+     * start of the initialization, the information is set at the same time as the phase
+     */
+    ConsentState updating( ConsentInformation information )
+    {
+        return new ConsentState( Phase.UPDATING, information, form, updated, formAvailable, status, canRequestAds );
+    }
+
+    ConsentState withForm( ConsentForm form )
+    {
+        return new ConsentState( phase, information, form, updated, formAvailable, status, canRequestAds );
+    }
+
+    /**
+     * requestConsentInfoUpdate succeeded, the form is loaded next if one is available
+     */
+    ConsentState updated( boolean formAvailable )
+    {
+        Phase next = formAvailable ? Phase.FORM_LOADING : Phase.READY;
+        return new ConsentState( next, information, form, true, formAvailable, status, canRequestAds );
+    }
+
+    ConsentState withStatus( int status, boolean canRequestAds )
+    {
+        return new ConsentState( phase, information, form, updated, formAvailable, status, canRequestAds );
+    }
+}
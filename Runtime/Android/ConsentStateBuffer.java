@@ -0,0 +1,28 @@
+package com.binouze;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Direct buffer holding the current consent state in the ConsentSnapshotLayout format, for Unity.
+ * The C# side gets its address once (GetStateBuffer) and reads it without JNI call: the sequence tells if the state
+ * changed, the body is then copied and checked with its CRC. Updated in place by ConsentSnapshotFile.publish,
+ * with the same body as the state file.
+ */
+final class ConsentStateBuffer
+{
+    // never reallocated, the native address handed to Unity stays valid
+    private static final ByteBuffer buffer = ByteBuffer.allocateDirect( ConsentSnapshotLayout.SIZE ).order( ByteOrder.LITTLE_ENDIAN );
+
+    static
+    {
+        ConsentSnapshotLayout.initHeader( buffer );
+    }
+
+    private ConsentStateBuffer() {}
+
+    static ByteBuffer get()
+    {
+        return buffer;
+    }
+}
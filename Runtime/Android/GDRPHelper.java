@@ -1,9 +1,12 @@
 package com.binouze;
 
 import androidx.preference.PreferenceManager;
+import android.content.Context;
 import android.content.SharedPreferences;
 import com.unity3d.player.UnityPlayer;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.lang.*;
 import android.util.Log;
 
@@ -12,208 +15,431 @@ public class GDRPHelper
     private static final String TAG = "GoogleUserMessagingPlatform::GDRPHelper";
     //IABTCF_AddtlConsent
 
+    // -- SNAPSHOT -----------------------------------------------------------------------------------------------------
+
+    private static          SharedPreferences prefs;
+    private static volatile ConsentSnapshot   snapshot;
+    // only used while holding the GDRPHelper lock
+    private static final    TCStringDecoder   decoder = new TCStringDecoder();
+    // publisher restrictions, decoded on demand
+    private static final    PermissionMatrix  permissions = new PermissionMatrix();
+    // IABTCF_PublisherConsent and IABTCF_PublisherLegitimateInterests masks, null until decoded
+    private static volatile long[]            publisherPurposes;
+
+    /**
+     * called on the background thread after the snapshot was rebuilt, once per burst of IABTCF_* key changes
+     */
+    public interface SnapshotListener
+    {
+        void onSnapshotChanged( ConsentSnapshot snapshot );
+    }
+
+    private static final List<SnapshotListener> snapshotListeners = new CopyOnWriteArrayList<>();
+
+    public static void addSnapshotListener( SnapshotListener listener )
+    {
+        snapshotListeners.add( listener );
+    }
+
+    public static void removeSnapshotListener( SnapshotListener listener )
+    {
+        snapshotListeners.remove( listener );
+    }
+
+    // SharedPreferences only keeps a weak reference on its listeners, we must keep this one alive
+    private static final SharedPreferences.OnSharedPreferenceChangeListener prefsListener = ( sharedPreferences, key ) ->
+    {
+        // the publisher keys are not in the snapshot, they are decoded again on the next query
+        if( key != null && key.startsWith("IABTCF_Publisher") )
+        {
+            if( key.startsWith(PermissionMatrix.RESTRICTIONS_PREFIX) )
+                permissions.onRestrictionChanged( key );
+            else
+                publisherPurposes = null;
+            return;
+        }
+
+        // key is null when the preferences are cleared (API 30+)
+        if( key == null )
+        {
+            permissions.invalidate();
+            publisherPurposes = null;
+        }
+        // a CMP writes a dozen keys at once, the snapshot is rebuilt once after the burst (or by the next getter)
+        if( key == null || key.startsWith("IABTCF_") )
+            markDirty();
+    };
+
+    // delay of the background rebuild after the first changed key
+    private static final long          REBUILD_DELAY_MS = 50;
+    // an IABTCF_* key changed since the snapshot was built
+    private static volatile boolean    dirty            = false;
+    private static final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    // rebuilt since the listeners were notified
+    private static final AtomicBoolean notifyPending    = new AtomicBoolean();
+
+    private static void markDirty()
+    {
+        dirty = true;
+        if( rebuildScheduled.compareAndSet( false, true ) )
+            ConsentExecutor.schedule( GDRPHelper::scheduledRebuild, REBUILD_DELAY_MS );
+    }
+
+    private static void scheduledRebuild()
+    {
+        rebuildScheduled.set( false );
+        rebuildIfDirty();
+        notifyIfRebuilt();
+    }
+
+    // the listeners (policies, change notifier, state file...) run once per burst, with the last snapshot
+    private static void notifyIfRebuilt()
+    {
+        if( !notifyPending.getAndSet( false ) )
+            return;
+
+        ConsentSnapshot s = snapshot;
+        for( SnapshotListener listener : snapshotListeners )
+            listener.onSnapshotChanged( s );
+    }
+
+    private static Context context;
+    private static boolean strictMode = false;
+
+    private static synchronized SharedPreferences getPreferences()
+    {
+        if( prefs == null )
+        {
+            prefs = PreferenceManager.getDefaultSharedPreferences(context != null ? context : UnityPlayer.currentActivity);
+            prefs.registerOnSharedPreferenceChangeListener(prefsListener);
+        }
+        return prefs;
+    }
+
+    /**
+     * when enabled, building the snapshot outside of the prefetch (so possibly reading the preferences file
+     * from disk on the calling thread) throws an IllegalStateException
+     */
+    public static void setStrictMode( boolean enabled )
+    {
+        strictMode = enabled;
+    }
+
+    /**
+     * load the preferences file and build the snapshot on the background thread,
+     * so the first getter does not have to wait for the disk
+     */
+    public static void prefetch( Context ctx )
+    {
+        synchronized( GDRPHelper.class )
+        {
+            if( context == null && ctx != null )
+                context = ctx.getApplicationContext();
+        }
+        ConsentExecutor.execute( GDRPHelper::getSnapshot );
+    }
+
+    /**
+     * returns the current consent snapshot, built on first access
+     */
+    public static ConsentSnapshot getSnapshot()
+    {
+        ConsentSnapshot s = snapshot;
+        if( s == null )
+        {
+            if( strictMode && !ConsentExecutor.isCurrentThread() )
+                throw new IllegalStateException( "consent preferences read before the prefetch completed, call Initialize earlier" );
+            s = loadSnapshot();
+        }
+        // the preferences are in memory once loaded, the rebuild does not touch the disk
+        else if( dirty )
+            s = rebuildIfDirty();
+        return s;
+    }
+
+    /**
+     * the last built snapshot, null if it was not loaded yet. never reads the preferences
+     */
+    static ConsentSnapshot peekSnapshot()
+    {
+        return snapshot;
+    }
+
+    private static synchronized ConsentSnapshot loadSnapshot()
+    {
+        if( snapshot == null )
+        {
+            dirty    = false;
+            snapshot = new ConsentSnapshot( getPreferences(), decoder );
+            TCStringExpiry.schedule( snapshot );
+        }
+        return snapshot;
+    }
+
+    // rebuild the snapshot if a key changed, returns the current snapshot.
+    // the listeners are notified by the scheduled rebuild, even if a getter did the rebuild
+    private static synchronized ConsentSnapshot rebuildIfDirty()
+    {
+        // a key changed while building sets it again and schedules another rebuild
+        if( !dirty || snapshot == null )
+            return snapshot;
+        dirty    = false;
+        snapshot = new ConsentSnapshot( getPreferences(), decoder );
+        TCStringExpiry.schedule( snapshot );
+        notifyPending.set( true );
+        return snapshot;
+    }
+
+    // kept when the consent expires: they describe the CMP and whether GDPR applies, not the consent itself
+    private static final Set<String> KEPT_KEYS = new HashSet<>( Arrays.asList(
+        "IABTCF_gdprApplies", "IABTCF_CmpSdkID", "IABTCF_CmpSdkVersion", "IABTCF_PolicyVersion" ) );
+
+    /**
+     * remove every consent key (IABTCF_*) in a single commit, the snapshot is rebuilt once for all of them.
+     * commits synchronously, must not be called on the UI thread
+     */
+    static void removeConsentKeys()
+    {
+        SharedPreferences        p       = getPreferences();
+        SharedPreferences.Editor editor  = p.edit();
+        int                      removed = 0;
+        for( String key : p.getAll().keySet() )
+        {
+            if( key.startsWith("IABTCF_") && !KEPT_KEYS.contains(key) )
+            {
+                editor.remove( key );
+                removed++;
+            }
+        }
+        if( removed == 0 )
+            return;
+        editor.commit();
+
+        // the per key notifications may come later (on the UI thread), the caches are invalidated right now.
+        // the snapshot is rebuilt once with them by the deferred rebuild, or by the next getter
+        permissions.invalidate();
+        publisherPurposes = null;
+        markDirty();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
     public static String getVendorConsents()
     {
-        return PreferenceManager.getDefaultSharedPreferences(UnityPlayer.currentActivity).getString("IABTCF_VendorConsents", "");
+        return getSnapshot().vendorConsents;
     }
     public static String getVendorLI()
     {
-        return PreferenceManager.getDefaultSharedPreferences(UnityPlayer.currentActivity).getString("IABTCF_VendorLegitimateInterests", "");
+        return getSnapshot().vendorLI;
     }
     public static String getPurposeConsents()
     {
-        return PreferenceManager.getDefaultSharedPreferences(UnityPlayer.currentActivity).getString("IABTCF_PurposeConsents", "");
+        return getSnapshot().purposeConsents;
     }
     public static String getPurposeLI()
     {
-        return PreferenceManager.getDefaultSharedPreferences(UnityPlayer.currentActivity).getString("IABTCF_PurposeLegitimateInterests", "");
+        return getSnapshot().purposeLI;
     }
     public static String getAddtlConsent()
     {
-        return PreferenceManager.getDefaultSharedPreferences(UnityPlayer.currentActivity).getString("IABTCF_AddtlConsent", "");
+        return getSnapshot().addtlConsent;
     }
 
     public static Boolean isGDPR()
     {
-        SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(UnityPlayer.currentActivity);
-        Integer           gdpr  = prefs.getInt("IABTCF_gdprApplies", 0);
-        
-        return gdpr == 1;
+        return getSnapshot().gdprApplies;
     }
-    
+
     public static Boolean canShowAds()
     {
-        SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(UnityPlayer.currentActivity);
-    
-        //https://github.com/InteractiveAdvertisingBureau/GDPR-Transparency-and-Consent-Framework/blob/master/TCFv2/IAB%20Tech%20Lab%20-%20CMP%20API%20v2.md#in-app-details
-        //https://support.google.com/admob/answer/9760862?hl=en&ref_topic=9756841
-        // vendor id list: https://iabeurope.eu/vendor-list-tcf/
-    
-        String purposeConsent = prefs.getString("IABTCF_PurposeConsents", "");
-        String vendorConsent  = prefs.getString("IABTCF_VendorConsents","");
-        String vendorLI       = prefs.getString("IABTCF_VendorLegitimateInterests","");
-        String purposeLI      = prefs.getString("IABTCF_PurposeLegitimateInterests","");
-    
-        // Minimum required for at least non-personalized ads
-        return hasConsentFor( Arrays.asList(1), purposeConsent ) && 
-               hasConsentOrLegitimateInterestFor( Arrays.asList(2,7,9,10), purposeConsent, purposeLI );
-    }
-    
+        return getSnapshot().canShowAds;
+    }
+
     public static Boolean canShowPersonalizedAds()
     {
-        SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(UnityPlayer.currentActivity);
-    
-        //https://github.com/InteractiveAdvertisingBureau/GDPR-Transparency-and-Consent-Framework/blob/master/TCFv2/IAB%20Tech%20Lab%20-%20CMP%20API%20v2.md#in-app-details
-        //https://support.google.com/admob/answer/9760862?hl=en&ref_topic=9756841
-    
-        String purposeConsent = prefs.getString("IABTCF_PurposeConsents", "");
-        String vendorConsent  = prefs.getString("IABTCF_VendorConsents","");
-        String vendorLI       = prefs.getString("IABTCF_VendorLegitimateInterests","");
-        String purposeLI      = prefs.getString("IABTCF_PurposeLegitimateInterests","");
-    
-        return hasConsentFor( Arrays.asList(1,3,4), purposeConsent ) && 
-               hasConsentOrLegitimateInterestFor( Arrays.asList(2,7,9,10), purposeConsent, purposeLI );
-    }
-    
+        return getSnapshot().canShowPersonalizedAds;
+    }
+
+    // -- RULES --------------------------------------------------------------------------------------------------------
+
+    //https://github.com/InteractiveAdvertisingBureau/GDPR-Transparency-and-Consent-Framework/blob/master/TCFv2/IAB%20Tech%20Lab%20-%20CMP%20API%20v2.md#in-app-details
+    //https://support.google.com/admob/answer/9760862?hl=en&ref_topic=9756841
+    // vendor id list: https://iabeurope.eu/vendor-list-tcf/
+
+    // the built-in rules are policies on purposes only, they are not registered so they have no ID
+
+    // Minimum required for at least non-personalized ads: consent for 1, consent or LI for 2,7,9,10
+    static final ConsentPolicy ADS              = ConsentPolicy.compile( -1, "ads",              new int[]{ 1 },     new int[]{ 2,7,9,10 }, null, null );
+    // personalized ads: consent for 1,3,4, consent or LI for 2,7,9,10
+    static final ConsentPolicy PERSONALIZED_ADS = ConsentPolicy.compile( -1, "personalized_ads", new int[]{ 1,3,4 }, new int[]{ 2,7,9,10 }, null, null );
+
+    // https://developers.google.com/tag-platform/security/guides/implement-TCF-strings
+    // firebase: consent or LI for each purpose
+    static final ConsentPolicy FIREBASE_AD_STORAGE         = ConsentPolicy.compile( -1, "firebase_ad_storage",         null, new int[]{ 1 },   null, null );
+    static final ConsentPolicy FIREBASE_AD_PERSONALIZATION = ConsentPolicy.compile( -1, "firebase_ad_personalization", null, new int[]{ 3,4 }, null, null );
+    static final ConsentPolicy FIREBASE_AD_USER_DATA       = ConsentPolicy.compile( -1, "firebase_ad_user_data",       null, new int[]{ 1,7 }, null, null );
+
     // -- FIREBASE -----------------------------------------------------------------------------------------------------
-    
+
     public static Boolean getFirebase_ad_storage()
     {
-        // https://developers.google.com/tag-platform/security/guides/implement-TCF-strings
-        SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(UnityPlayer.currentActivity);
-        String purposeConsent   = prefs.getString("IABTCF_PurposeConsents", "");
-        String purposeLI        = prefs.getString("IABTCF_PurposeLegitimateInterests", "");
-    
-        Boolean consent = hasConsentFor( Arrays.asList(1), purposeConsent );
-        Boolean li      = hasConsentFor( Arrays.asList(1), purposeLI );
-    
-        return consent || li;
-    }
-    
-     public static Boolean getFirebase_ad_personalization()
-     {
-         // https://developers.google.com/tag-platform/security/guides/implement-TCF-strings
-         SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(UnityPlayer.currentActivity);
-         String purposeConsent   = prefs.getString("IABTCF_PurposeConsents", "");
-         String purposeLI        = prefs.getString("IABTCF_PurposeLegitimateInterests", "");
-     
-         Boolean consent3 = hasConsentFor( Arrays.asList(3), purposeConsent );
-         Boolean consent4 = hasConsentFor( Arrays.asList(4), purposeConsent );
-         
-         Boolean li3 = hasConsentFor( Arrays.asList(3), purposeLI );
-         Boolean li4 = hasConsentFor( Arrays.asList(4), purposeLI );
-     
-         return (consent3 || li3) && (consent4 || li4);
-     }
-     
-     public static Boolean getFirebase_ad_user_data()
-     {
-         // https://developers.google.com/tag-platform/security/guides/implement-TCF-strings
-         SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(UnityPlayer.currentActivity);
-         String purposeConsent   = prefs.getString("IABTCF_PurposeConsents", "");
-         String purposeLI        = prefs.getString("IABTCF_PurposeLegitimateInterests", "");
-     
-         Boolean consent1 = hasConsentFor( Arrays.asList(1), purposeConsent );
-         Boolean consent7 = hasConsentFor( Arrays.asList(7), purposeConsent );
-         
-         Boolean li1 = hasConsentFor( Arrays.asList(1), purposeLI );
-         Boolean li7 = hasConsentFor( Arrays.asList(7), purposeLI );
-     
-         return (consent1 || li1) && (consent7 || li7);
-     }
-    
-    // -----------------------------------------------------------------------------------------------------------------
-    
+        return getSnapshot().firebaseAdStorage;
+    }
+
+    public static Boolean getFirebase_ad_personalization()
+    {
+        return getSnapshot().firebaseAdPersonalization;
+    }
+
+    public static Boolean getFirebase_ad_user_data()
+    {
+        return getSnapshot().firebaseAdUserData;
+    }
+
+    // -- GLOBAL VENDOR LIST -------------------------------------------------------------------------------------------
+
+    private static volatile GlobalVendorList vendorList;
+
     /**
-     * Savoir si un vendeur avec un ID specifie a ete autorise par l'utilisateur
-     * @see https://iabeurope.eu/vendor-list-tcf/ for vendorList IDs
+     * vendor list used by isVendorAllowed, null to stop using one
      */
-    public static Boolean isVendorAutorized( Integer vendorID )
+    public static void setGlobalVendorList( GlobalVendorList list )
+    {
+        vendorList = list;
+    }
+
+    public static GlobalVendorList getGlobalVendorList()
     {
-        SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(UnityPlayer.currentActivity);
-        String vendorConsent    = prefs.getString("IABTCF_VendorConsents","");
-        return hasAttribute( vendorConsent, vendorID );
+        return vendorList;
     }
-    
+
     /**
-     * Savoir si un vendeur avec un ID specifie a ete autorise par l'utilisateur
-     * @see https://iabeurope.eu/vendor-list-tcf/ for vendorList IDs
+     * Savoir si un vendeur peut traiter les donnees pour tous les purposes qu'il declare dans la GVL
+     * (consentement et interet legitime), false si aucune GVL n'est chargee ou si le vendeur n'y est pas
      */
-    public static Boolean isAddtlConsentAutorized( Integer externalID )
+    public static Boolean isVendorAllowed( Integer vendorID )
     {
-        String strId            = externalID.toString();
-        SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(UnityPlayer.currentActivity);
-        String addtlConsent     = prefs.getString("IABTCF_AddtlConsent","");
-        return addtlConsent.contains(strId);
+        return isVendorAllowed( getSnapshot(), vendorList, vendorID );
     }
-    
-    // Check if a binary string has a "1" at position "index" (1-based)
-    private static Boolean hasAttribute( String input, Integer index )
+
+    // the publisher restrictions decide the legal basis of the flexible purposes
+    private static final GlobalVendorList.Restrictions restrictions = ( purpose, vendorID ) -> permissions.restriction( purpose, vendorID, getPreferences() );
+
+    /**
+     * true if the vendor may process data for every purpose it declares in this vendor list,
+     * once the publisher restrictions are applied. false if there is no list or the vendor is not in it
+     */
+    static boolean isVendorAllowed( ConsentSnapshot snapshot, GlobalVendorList list, int vendorID )
     {
-        return input.length() >= index && input.charAt(index-1) == '1';
+        return list != null && list.isAllowed( snapshot, vendorID, restrictions );
     }
-    
-    // Check if consent is given for a list of purposes
-    private static Boolean hasConsentFor( List<Integer> purposes, String purposeConsent )
+
+    // -- PUBLISHER RESTRICTIONS ---------------------------------------------------------------------------------------
+
+    /**
+     * bitset of the vendors allowed to process data for this purpose once the publisher restrictions
+     * and the legal bases declared in the vendor list are applied (bit N = vendor N), do not modify it
+     */
+    public static long[] getVendorsAllowedForPurpose( int purpose )
     {
-        for(int p : purposes) {
-            if(!hasAttribute(purposeConsent, p)) {
-                return false;
-            }
-        }
-        return true;
-        //return purposes.stream().allMatch( p -> hasAttribute(purposeConsent, p) );
+        return permissions.row( purpose, getPreferences(), getSnapshot(), vendorList );
     }
-    
-    // Check if a vendor either has consent or legitimate interest for a list of purposes
-    private static Boolean hasConsentOrLegitimateInterestFor( List<Integer> purposes, String purposeConsent, String purposeLI )
+
+    public static boolean isVendorAllowedForPurpose( int vendorID, int purpose )
     {
-         for(int p : purposes) {
-            if(!hasAttribute(purposeConsent, p) && !hasAttribute(purposeLI, p)) {
-                return false;
-            }
-        }
-        return true;
-        //return purposes.stream().allMatch( p -> hasAttribute(purposeLI, p) || hasAttribute(purposeConsent, p) );
+        return ConsentBits.get( getVendorsAllowedForPurpose( purpose ), vendorID );
     }
-    
-    // this function deletes the IABTCF_TCString if the timestamp is too old (365 days or more)
-    public static boolean deleteOutdatedTCString() 
+
+    /**
+     * restriction of IABTCF_PublisherRestrictions{purpose} for this vendor:
+     * -1 none, 0 not allowed, 1 require consent, 2 require legitimate interest
+     */
+    public static int getPublisherRestriction( int purpose, int vendorID )
     {
-        SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(UnityPlayer.currentActivity);
+        return permissions.restriction( purpose, vendorID, getPreferences() );
+    }
 
-        // get IABTCF string containing creation timestamp;
-        // fall back to string encoding timestamp 0 if nothing is currently stored
-        String tcString      = prefs.getString("IABTCF_TCString", "AAAAAAA");
-        String base64        = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
-        String dateSubstring = tcString.subSequence(1,7).toString();
+    /**
+     * purposes consented to the publisher (bit N = purpose N)
+     */
+    public static long getPublisherConsentMask()
+    {
+        return getPublisherPurposes()[0];
+    }
 
-        //interpret date substring as Base64-encoded integer value
-        long timestamp = 0;
-        for( int i=0; i<dateSubstring.length(); i++ ) 
+    /**
+     * purposes the publisher uses under legitimate interest (bit N = purpose N)
+     */
+    public static long getPublisherLIMask()
+    {
+        return getPublisherPurposes()[1];
+    }
+
+    private static long[] getPublisherPurposes()
+    {
+        long[] purposes = publisherPurposes;
+        if( purposes == null )
         {
-            char c    = dateSubstring.charAt(i);
-            int value = base64.indexOf(c);
-            timestamp = timestamp * 64 + value;
+            SharedPreferences prefs = getPreferences();
+            purposes = new long[]{
+                ConsentBits.parseMask( prefs.getString("IABTCF_PublisherConsent", "") ),
+                ConsentBits.parseMask( prefs.getString("IABTCF_PublisherLegitimateInterests", "") )
+            };
+            publisherPurposes = purposes;
         }
+        return purposes;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Savoir si un vendeur avec un ID specifie a ete autorise par l'utilisateur
+     * @see https://iabeurope.eu/vendor-list-tcf/ for vendorList IDs
+     */
+    public static Boolean isVendorAutorized( Integer vendorID )
+    {
+        return getSnapshot().hasVendorConsent( vendorID );
+    }
 
-        // timestamp is given is deci-seconds, convert to milliseconds
-        timestamp *= 100;
+    /**
+     * Savoir si un vendeur avec un ID specifie a ete autorise par l'utilisateur
+     * @see https://iabeurope.eu/vendor-list-tcf/ for vendorList IDs
+     */
+    public static Boolean isAddtlConsentAutorized( Integer externalID )
+    {
+        return getSnapshot().addtlConsentIndex.isConsented( externalID );
+    }
+
+    /**
+     * Savoir si un ATP a ete presente a l'utilisateur sans etre autorise (AC string v2 uniquement)
+     * @see https://support.google.com/admanager/answer/9681920?hl=en
+     */
+    public static Boolean isAddtlConsentDisclosed( Integer externalID )
+    {
+        return getSnapshot().addtlConsentIndex.isDisclosed( externalID );
+    }
+
+    // this function deletes the consent keys if the TC string is too old (365 days or more)
+    // TCStringExpiry already does it when the expiry date passes, on the background thread
+    // every IABTCF_* consent key is removed, not only IABTCF_TCString, see removeConsentKeys.
+    // the removal runs on the background thread, returns true when it was scheduled
+    public static boolean deleteOutdatedTCString()
+    {
+        // the expiry date is computed when the TC string is decoded
+        long expiresAt = getSnapshot().tcExpiresAt;
+        long now       = System.currentTimeMillis();
 
-        // compare with current timestamp to get age in days
-        long now     = System.currentTimeMillis();
-        long daysAgo = (now - timestamp) / (1000*60*60*24);
-        
         // logging debug infos
-        Log.i(TAG, TAG+":: deleteOutdatedTCString now = " + now + " - timestamp = " + timestamp + " - daysAgo = " + daysAgo);
-        
-        //delete TC string if age is over a year
-        if( daysAgo > 365 ) 
+        Log.i(TAG, TAG+":: deleteOutdatedTCString now = " + now + " - expiresAt = " + expiresAt);
+
+        // delete the consent keys if the TC string is over a year old
+        if( expiresAt != 0 && now >= expiresAt )
         {
-            prefs.edit().remove("IABTCF_TCString").apply();
+            // commits synchronously, never on the calling thread
+            ConsentExecutor.execute( GDRPHelper::removeConsentKeys );
             return true;
         }
-        
+
         return false;
     }
 }
\ No newline at end of file
@@ -0,0 +1,294 @@
+package com.binouze;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Binary index of the IAB Global Vendor List, memory-mapped from a file.
+ * The GVL JSON is compiled once (at build time with the vendorList task of Benchmarks~, or at runtime with compile) into a table indexed
+ * by vendor ID, so a lookup is a read at a fixed offset and nothing is parsed when the index is loaded.
+ *
+ * File format (big endian):
+ *   header, 32 bytes: magic, format version, vendorListVersion, tcfPolicyVersion, maxVendorId, vendorCount, 8 reserved
+ *   (maxVendorId + 1) entries of 16 bytes: purposes, legIntPurposes, flexiblePurposes, specialFeatures
+ * each mask is an int with bit N = purpose (or special feature) N, bit 0 of purposes is set if the vendor is listed.
+ * @see https://vendor-list.consensu.org/v3/vendor-list.json
+ */
+public final class GlobalVendorList
+{
+    private static final int MAGIC          = 0x47564C49; // "GVLI"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE    = 32;
+    private static final int ENTRY_SIZE     = 16;
+    private static final int LISTED         = 1;
+
+    // entry fields
+    private static final int PURPOSES          = 0;
+    private static final int LEG_INT_PURPOSES  = 4;
+    private static final int FLEXIBLE_PURPOSES = 8;
+    private static final int SPECIAL_FEATURES  = 12;
+
+    public final int vendorListVersion;
+    public final int tcfPolicyVersion;
+    public final int maxVendorId;
+    public final int vendorCount;
+
+    private final ByteBuffer index;
+
+    private GlobalVendorList( ByteBuffer index ) throws IOException
+    {
+        if( index.capacity() < HEADER_SIZE || index.getInt( 0 ) != MAGIC || index.getInt( 4 ) != FORMAT_VERSION )
+            throw new IOException( "not a vendor list index" );
+
+        this.index        = index;
+        vendorListVersion = index.getInt( 8 );
+        tcfPolicyVersion  = index.getInt( 12 );
+        maxVendorId       = index.getInt( 16 );
+        vendorCount       = index.getInt( 20 );
+
+        if( maxVendorId < 0 || index.capacity() < HEADER_SIZE + (long)(maxVendorId + 1) * ENTRY_SIZE )
+            throw new IOException( "truncated vendor list index" );
+    }
+
+    /**
+     * map a compiled index, throws if the file is not a valid index
+     */
+    public static GlobalVendorList map( File file ) throws IOException
+    {
+        // the mapping stays valid after the channel is closed
+        try( RandomAccessFile raf = new RandomAccessFile( file, "r" ); FileChannel channel = raf.getChannel() )
+        {
+            return new GlobalVendorList( channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() ) );
+        }
+    }
+
+    // -- LOOKUPS ------------------------------------------------------------------------------------------------------
+
+    private int field( int vendorID, int field )
+    {
+        if( vendorID <= 0 || vendorID > maxVendorId )
+            return 0;
+        return index.getInt( HEADER_SIZE + vendorID * ENTRY_SIZE + field );
+    }
+
+    /**
+     * true if the vendor is in the list (and not deleted)
+     */
+    public boolean isListed( int vendorID )
+    {
+        return (field( vendorID, PURPOSES ) & LISTED) != 0;
+    }
+
+    /**
+     * purposes the vendor needs consent for, bit N = purpose N
+     */
+    public int purposes( int vendorID )
+    {
+        return field( vendorID, PURPOSES ) & ~LISTED;
+    }
+
+    /**
+     * purposes the vendor uses under legitimate interest, bit N = purpose N
+     */
+    public int legIntPurposes( int vendorID )
+    {
+        return field( vendorID, LEG_INT_PURPOSES );
+    }
+
+    /**
+     * purposes where the publisher can change the legal basis of the vendor, bit N = purpose N
+     */
+    public int flexiblePurposes( int vendorID )
+    {
+        return field( vendorID, FLEXIBLE_PURPOSES );
+    }
+
+    /**
+     * special features the vendor needs an opt-in for, bit N = special feature N
+     */
+    public int specialFeatures( int vendorID )
+    {
+        return field( vendorID, SPECIAL_FEATURES );
+    }
+
+    /**
+     * publisher restriction of a purpose for a vendor, one of the PermissionMatrix.RESTRICTION_* values
+     */
+    interface Restrictions
+    {
+        int restriction( int purpose, int vendorID );
+    }
+
+    /**
+     * true if the vendor may process data with the declared legal bases: the vendor and all its consent purposes
+     * are consented, the legitimate interest of the vendor and of all its LI purposes is established,
+     * and the user opted in all its special features. false if the vendor is not listed.
+     * the publisher restrictions are not applied, see GDRPHelper.isVendorAllowed. the gdprApplies flag is not checked
+     */
+    public boolean isAllowed( ConsentSnapshot snapshot, int vendorID )
+    {
+        return isAllowed( snapshot, vendorID, null );
+    }
+
+    /**
+     * isAllowed with the publisher restrictions: the legal basis of a flexible purpose is the one the publisher
+     * requires (consent or legitimate interest), a purpose that is not allowed, or that requires a basis the vendor
+     * can not use, makes the vendor not allowed. same rules as PermissionMatrix
+     */
+    boolean isAllowed( ConsentSnapshot snapshot, int vendorID, Restrictions restrictions )
+    {
+        if( vendorID <= 0 || vendorID > maxVendorId )
+            return false;
+
+        int base     = HEADER_SIZE + vendorID * ENTRY_SIZE;
+        int purposes = index.getInt( base + PURPOSES );
+        if( (purposes & LISTED) == 0 )
+            return false;
+
+        int consent  = purposes & ~LISTED;
+        int legInt   = index.getInt( base + LEG_INT_PURPOSES );
+        int flexible = index.getInt( base + FLEXIBLE_PURPOSES );
+        int features = index.getInt( base + SPECIAL_FEATURES );
+
+        // legal basis of each declared purpose once restricted
+        if( restrictions != null )
+        {
+            for( int declared = consent | legInt; declared != 0; declared &= declared - 1 )
+            {
+                int purpose = Integer.numberOfTrailingZeros( declared );
+                int bit     = 1 << purpose;
+                switch( restrictions.restriction( purpose, vendorID ) )
+                {
+                    case PermissionMatrix.RESTRICTION_NOT_ALLOWED:
+                        return false;
+                    case PermissionMatrix.RESTRICTION_REQUIRE_CONSENT:
+                        if( (consent & bit) == 0 && (flexible & bit) == 0 )
+                            return false;
+                        consent |= bit;
+                        legInt  &= ~bit;
+                        break;
+                    case PermissionMatrix.RESTRICTION_REQUIRE_LI:
+                        // invalid for purpose 1 (never under legitimate interest), the policy ignores it
+                        if( purpose == 1 )
+                            break;
+                        if( (legInt & bit) == 0 && (flexible & bit) == 0 )
+                            return false;
+                        legInt  |= bit;
+                        consent &= ~bit;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        // purpose 1 can't be processed under legitimate interest, as declared by the vendor list
+        if( (legInt & 2) != 0 )
+            return false;
+
+        long consentMask = consent  & 0xFFFFFFFFL;
+        long legIntMask  = legInt   & 0xFFFFFFFFL;
+        long featureMask = features & 0xFFFFFFFFL;
+        return (consentMask == 0 || (snapshot.hasVendorConsent( vendorID ) && ConsentBits.hasAll( snapshot.purposeConsentMask, consentMask ))) &&
+               (legIntMask  == 0 || (snapshot.hasVendorLI( vendorID )      && ConsentBits.hasAll( snapshot.purposeLIMask, legIntMask ))) &&
+               ConsentBits.hasAll( snapshot.specialFeatureMask, featureMask );
+    }
+
+    // -- COMPILER -----------------------------------------------------------------------------------------------------
+
+    /**
+     * compile a GVL JSON (v2 or v3) into an index file, deleted vendors are left out
+     */
+    public static void compile( String json, File out ) throws IOException, JSONException
+    {
+        JSONObject gvl     = new JSONObject( json );
+        JSONObject vendors = gvl.getJSONObject( "vendors" );
+
+        int maxVendorId = 0;
+        for( Iterator<String> it = vendors.keys(); it.hasNext(); )
+            maxVendorId = Math.max( maxVendorId, vendors.getJSONObject( it.next() ).getInt( "id" ) );
+
+        int[] entries     = new int[(maxVendorId + 1) * 4];
+        int   vendorCount = 0;
+        for( Iterator<String> it = vendors.keys(); it.hasNext(); )
+        {
+            JSONObject vendor = vendors.getJSONObject( it.next() );
+            int        id     = vendor.getInt( "id" );
+            if( id <= 0 || vendor.has( "deletedDate" ) )
+                continue;
+
+            int entry = id * 4;
+            entries[entry]     = mask( vendor.optJSONArray( "purposes" ) ) | LISTED;
+            entries[entry + 1] = mask( vendor.optJSONArray( "legIntPurposes" ) );
+            entries[entry + 2] = mask( vendor.optJSONArray( "flexiblePurposes" ) );
+            entries[entry + 3] = mask( vendor.optJSONArray( "specialFeatures" ) );
+            vendorCount++;
+        }
+
+        // write to a temp file then rename, so a reader never maps a partial index
+        File temp = new File( out.getPath() + ".tmp" );
+        try( DataOutputStream data = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( temp ) ) ) )
+        {
+            data.writeInt( MAGIC );
+            data.writeInt( FORMAT_VERSION );
+            data.writeInt( gvl.optInt( "vendorListVersion" ) );
+            data.writeInt( gvl.optInt( "tcfPolicyVersion" ) );
+            data.writeInt( maxVendorId );
+            data.writeInt( vendorCount );
+            data.writeLong( 0 );
+            for( int value : entries )
+                data.writeInt( value );
+        }
+        if( !temp.renameTo( out ) )
+            throw new IOException( "cannot rename " + temp + " to " + out );
+    }
+
+    /**
+     * compile a GVL JSON file into an index file
+     */
+    public static void compile( File json, File out ) throws IOException, JSONException
+    {
+        compile( readText( json ), out );
+    }
+
+    private static int mask( JSONArray ids ) throws JSONException
+    {
+        if( ids == null )
+            return 0;
+
+        int mask = 0;
+        for( int i=0; i<ids.length(); i++ )
+        {
+            int id = ids.getInt( i );
+            if( id > 0 && id < 32 )
+                mask |= 1 << id;
+        }
+        return mask;
+    }
+
+    private static String readText( File file ) throws IOException
+    {
+        try( InputStream in = new FileInputStream( file ) )
+        {
+            ByteArrayOutputStream bytes  = new ByteArrayOutputStream( (int)file.length() );
+            byte[]                buffer = new byte[8192];
+            int                   read;
+            while( (read = in.read( buffer )) > 0 )
+                bytes.write( buffer, 0, read );
+            return bytes.toString( "UTF-8" );
+        }
+    }
+}
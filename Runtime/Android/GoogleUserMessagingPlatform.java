@@ -9,17 +9,28 @@ import com.google.android.ump.UserMessagingPlatform;
 
 import com.unity3d.player.UnityPlayer;
 import com.binouze.GDRPHelper;
+import android.content.Context;
+import android.os.SystemClock;
 import android.util.Log;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class GoogleUserMessagingPlatform
 {
     private static final String  TAG            = "GoogleUMP";
     private static       boolean loggingEnabled = false;
     
-    private static void SendStatusMessage( String status )
+    private static void SendStatusMessage( int status )
     {
         logInfo( "SendStatusMessage " + status );
-        UnityPlayer.UnitySendMessage( "GoogleUserMessagingPlatform", "OnFormDissmissedMessage", status );
+        UnityPlayer.UnitySendMessage( "GoogleUserMessagingPlatform", "OnFormDissmissedMessage", String.format("%d", status) );
     }
     
     /**
@@ -28,6 +39,60 @@ public class GoogleUserMessagingPlatform
     public static void EnableDebugLogging( boolean flag ) 
     {
         loggingEnabled = flag;
+        ConsentLog.setEnabled( loggingEnabled || DebugMode );
+    }
+    
+    /**
+     * returns the bridge calls recorded since logging was enabled (last 512 calls), one per line:
+     * "time event argument result"
+     */
+    public static String DumpDebugLog() 
+    {
+        return ConsentLog.dump();
+    }
+    
+    public static void ClearDebugLog() 
+    {
+        ConsentLog.clear();
+    }
+    
+    /**
+     * returns the lifecycle timings, the bridge call counters and the error counters in a single array,
+     * see ConsentMetrics for the layout
+     */
+    public static long[] GetMetrics() 
+    {
+        return ConsentMetrics.snapshot();
+    }
+    
+    /**
+     * returns the direct buffer holding the current consent state, see ConsentSnapshotLayout for the format.
+     * it is updated in place, Unity reads it through its native address without calling back into Java
+     */
+    public static ByteBuffer GetStateBuffer() 
+    {
+        return ConsentStateBuffer.get();
+    }
+    
+    /**
+     * returns at most max consent transitions recorded after this sequence, oldest first, 5 longs per entry:
+     * sequence, time in ms, TC string hash, consent flags, previous status << 32 | new status
+     */
+    public static long[] ReadJournal( long afterSequence, int max ) 
+    {
+        return ConsentJournal.read( afterSequence, max );
+    }
+    
+    // count the bridge call and record it in the debug log
+    private static void Trace( int call, long arg, long result )
+    {
+        ConsentMetrics.countCall( call );
+        ConsentLog.record( call, arg, result );
+    }
+    
+    private static void Trace( int call, long arg, boolean result )
+    {
+        Trace( call, arg, result ? 1 : 0 );
     }
     
     private static boolean DebugMode      = false;
@@ -45,6 +110,7 @@ public class GoogleUserMessagingPlatform
         DebugMode      = DebugDevice != null && debugGeography > 0;
         ForceReset     = forceReset;
         DebugGeography = debugGeography;
+        ConsentLog.setEnabled( loggingEnabled || DebugMode );
     }
     
     public static void SetTargetChildren( boolean val ) 
@@ -52,6 +118,14 @@ public class GoogleUserMessagingPlatform
         TargetChildren = val;
     }
     
+    /**
+     * when enabled, a getter called before the consent preferences are prefetched throws instead of reading the disk
+     */
+    public static void SetStrictMode( boolean val ) 
+    {
+        GDRPHelper.setStrictMode( val );
+    }
+    
     private static void logInfo( String msg ) 
     {
         if( loggingEnabled || DebugMode ) 
@@ -64,11 +138,42 @@ public class GoogleUserMessagingPlatform
         Log.e(TAG, TAG+"::"+msg);
     }
 
-    private static  ConsentInformation consentInformation;
-    private static  ConsentForm        consentForm;
-    private static  boolean            IsInit        = false;
-    private static  boolean            FormAvailable = false;
-    private static  int                ConsentStatus = ConsentInformation.ConsentStatus.UNKNOWN;
+    // lifecycle state, only written on the UI thread, read from any thread
+    private static final AtomicReference<ConsentState> state = new AtomicReference<>( ConsentState.INITIAL );
+    
+    // -- EARLY INITIALIZATION -----------------------------------------------------------------------------------------
+    
+    // set by ConsentInitializer when the process starts, null if the startup provider was removed from the manifest
+    private static volatile Context            ApplicationContext;
+    // consent information got when the process started, used by DoInitialize
+    private static volatile ConsentInformation PreparedInformation;
+    
+    /**
+     * called by ConsentInitializer on the main thread when the process starts, before Unity creates its activity:
+     * starts reading the decisions of the previous launch, decoding the consent preferences and publishing them
+     * for the other processes, and gets the consent information. Initialize then only has to request the consent info update
+     */
+    static ConsentInformation Prepare( Context context )
+    {
+        Context app = context.getApplicationContext();
+        ApplicationContext = app;
+        
+        ConsentCache.load( app );
+        GDRPHelper.prefetch( app );
+        ConsentSnapshotFile.open( app );
+        ConsentJournal.open( app );
+        
+        ConsentInformation information = UserMessagingPlatform.getConsentInformation( app );
+        PreparedInformation = information;
+        return information;
+    }
+    
+    // the application context, the activity if ConsentInitializer did not run
+    private static Context AppContext()
+    {
+        Context app = ApplicationContext;
+        return app != null ? app : UnityPlayer.currentActivity;
+    }
     
     /**
      * Start initialisation
@@ -76,34 +181,54 @@ public class GoogleUserMessagingPlatform
      */
     public static void Initialize()
     {
+        StartInitialize();
+        
         UnityPlayer.currentActivity.runOnUiThread(
             (Runnable) () -> {
+                // a native caller may have initialized first, the status is sent to Unity anyway
+                if( StatusReported && !UnityInitialize )
+                    SendStatusMessage( GetConsentStatus() );
+                UnityInitialize = true;
                 DoInitialize();
             });
     }
+    
+    private static void StartInitialize()
+    {
+        ConsentMetrics.markInit();
+        
+        // both already started by ConsentInitializer unless it was disabled
+        // read the decisions of the previous launch, used until the consent info is updated
+        ConsentCache.load( AppContext() );
+        // start loading the consent preferences from disk right now on a background thread
+        GDRPHelper.prefetch( AppContext() );
+        // share the consent state with the other processes of the app
+        ConsentSnapshotFile.open( AppContext() );
+        // record the consent transitions
+        ConsentJournal.open( AppContext() );
+        // push the consent changes to Unity
+        ConsentChangeNotifier.start();
+    }
 
     /**
      * Start initialisation
      */
     private static void DoInitialize()
     {
-        if( IsInit )
+        ConsentState current = state.get();
+        if( current.isInitialized() )
             return;
-        IsInit = true;
         
         logInfo("Initialize");
-    
-        /*boolean deleted = GDRPHelper.deleteOutdatedTCString();
-        if( deleted )
-            logInfo("deleted outdated TCF String");*/
-            
+        
+        // an outdated TC string is removed by TCStringExpiry, on the background thread
         ConsentRequestParameters params;
         if( DebugMode )
         {
             logInfo("Mode Debug");
         
             ConsentDebugSettings debugSettings = new ConsentDebugSettings
-                .Builder( UnityPlayer.currentActivity )
+                .Builder( AppContext() )
                 .setDebugGeography( DebugGeography )
                 .addTestDeviceHashedId( DebugDevice )
                 .build();
@@ -125,51 +250,230 @@ public class GoogleUserMessagingPlatform
                 .build();
         }
             
-        consentInformation = UserMessagingPlatform.getConsentInformation( UnityPlayer.currentActivity );
+        ConsentInformation consentInformation = PreparedInformation;
+        if( consentInformation == null )
+            consentInformation = UserMessagingPlatform.getConsentInformation( AppContext() );
+        // the information is published with the phase, an initialized state always has it
+        if( !state.compareAndSet( current, current.updating( consentInformation ) ) )
+            return;
+        
         if( DebugMode && ForceReset )
         {
             logInfo("Force Reset Datas");
             consentInformation.reset();
         }
+        // the status of the previous session is usable until the update completes
+        RefreshConsentStatus();
+        
+        InfoUpdateParams = params;
+        if( InfoUpdateTimeoutMs > 0 )
+            ConsentExecutor.schedule( () -> RunOnUiThread( GoogleUserMessagingPlatform::OnInfoUpdateDeadline ), InfoUpdateTimeoutMs );
+        RequestInfoUpdate();
+    }
+    
+    // -- CONSENT INFO UPDATE, only used on the UI thread -------------------------------------------------------------
+    
+    private static long                     InfoUpdateTimeoutMs    = 0;
+    private static int                      InfoUpdateMaxRetries   = 3;
+    private static long                     InfoUpdateBackoffMs    = 2000;
+    private static long                     InfoUpdateMaxBackoffMs = 60 * 1000;
+    
+    private static ConsentRequestParameters InfoUpdateParams;
+    private static int                      InfoUpdateRetries      = 0;
+    private static boolean                  InfoUpdateRetryPending = false;
+    // the backoff timer and the network watcher of the pending retry, the older ones are stale
+    private static int                      InfoUpdateRetryId      = 0;
+    private static ScheduledFuture<?>       InfoUpdateRetryTimer;
+    // the status was reported for Initialize, by the deadline or by the first result
+    private static boolean                  StatusReported         = false;
+    // Unity called Initialize, the status is only sent to Unity then
+    private static boolean                  UnityInitialize        = false;
+    // the authoritative result arrived, or the retries were given up
+    private static boolean                  InfoUpdateDone         = false;
+    
+    /**
+     * requestConsentInfoUpdate options, to call before Initialize
+     * @param timeoutMs after this delay Initialize completes with the status of the previous session, 0 to always wait
+     * @param maxRetries number of retries after a failure, the first failure still completes Initialize
+     * @param initialBackoffMs delay before the first retry, doubled at each retry with a random jitter
+     * @param maxBackoffMs maximum delay between two retries
+     */
+    public static void SetInfoUpdateOptions( long timeoutMs, int maxRetries, long initialBackoffMs, long maxBackoffMs )
+    {
+        InfoUpdateTimeoutMs    = Math.max( 0, timeoutMs );
+        InfoUpdateMaxRetries   = Math.max( 0, maxRetries );
+        InfoUpdateBackoffMs    = Math.max( 1, initialBackoffMs );
+        InfoUpdateMaxBackoffMs = Math.max( InfoUpdateBackoffMs, maxBackoffMs );
+    }
+    
+    private static void RunOnUiThread( Runnable task )
+    {
+        UnityPlayer.currentActivity.runOnUiThread( task );
+    }
+    
+    private static void RequestInfoUpdate()
+    {
+        ConsentInformation consentInformation = state.get().information;
         
+        ConsentMetrics.begin( ConsentMetrics.INFO_UPDATE );
         consentInformation.requestConsentInfoUpdate(
             UnityPlayer.currentActivity,
-            params,
+            InfoUpdateParams,
             () -> 
             {
+                ConsentMetrics.success( ConsentMetrics.INFO_UPDATE );
+                
                 // The consent information state was updated.
                 // You are now ready to check if a form is available.
-                if( consentInformation.isConsentFormAvailable() ) 
+                boolean formAvailable = consentInformation.isConsentFormAvailable();
+                if( formAvailable ) 
                 {
                     logInfo("onConsentInfoUpdateSuccess FORM AVAILABLE");
-                    FormAvailable = true;
                 }
                 else
                 {
                     logError("onConsentInfoUpdateSuccess FORM NOT AVAILABLE");
-                    FormAvailable = false;
                 }
+                state.set( state.get().updated( formAvailable ) );
+                
+                // a retry scheduled meanwhile is not needed anymore
+                InfoUpdateRetryPending = false;
+                CancelRetryTimer();
+                InfoUpdateDone = true;
+                SendInfoUpdatedMessage( true, RefreshConsentStatus() );
                 
-                // load the form
-                LoadForm( false, true );
+                // load the form, the status is reported if the deadline did not already do it
+                boolean report = !StatusReported;
+                StatusReported = true;
+                boolean              send        = report && UnityInitialize;
+                List<StatusCallback> initialized = TakeCallbacks( InitializeCallbacks );
+                RunOnUiThread( () -> DoLoadForm( false, send, initialized ) );
             },
             formError -> 
             {
+                ConsentMetrics.error( ConsentMetrics.INFO_UPDATE, formError.getErrorCode() );
+                
                 // Handle the error.
                 logError("onConsentInfoUpdateFailure ERROR: "+formError.getMessage());
-                LoadForm( false, true );
+                state.set( state.get().withPhase( ConsentState.Phase.ERROR ) );
+                
+                OnInfoUpdateFailure( formError );
             }
         );
     }
     
+    private static void OnInfoUpdateFailure( FormError formError )
+    {
+        int code = formError.getErrorCode();
+        if( code != FormError.ErrorCode.INVALID_OPERATION && InfoUpdateRetries < InfoUpdateMaxRetries )
+        {
+            // exponential backoff with jitter: between half and all of the doubled delay
+            long delay = Math.min( InfoUpdateMaxBackoffMs, InfoUpdateBackoffMs << Math.min( InfoUpdateRetries, 20 ) );
+            delay = delay / 2 + ThreadLocalRandom.current().nextLong( delay / 2 + 1 );
+            InfoUpdateRetries++;
+            InfoUpdateRetryPending = true;
+            int retryId = ++InfoUpdateRetryId;
+            logInfo("retry consent info update in " + delay + "ms");
+            
+            CancelRetryTimer();
+            InfoUpdateRetryTimer = ConsentExecutor.schedule( () -> RunOnUiThread( () -> RetryInfoUpdate( retryId ) ), delay );
+            // offline: retry as soon as the connection is back
+            if( code == FormError.ErrorCode.INTERNET_ERROR )
+                NetworkWatcher.whenConnected( AppContext(), () -> RunOnUiThread( () -> RetryInfoUpdate( retryId ) ) );
+        }
+        else
+        {
+            InfoUpdateDone = true;
+            SendInfoUpdatedMessage( false, code );
+        }
+        
+        // the first failure completes Initialize with the last known status, as before
+        if( !StatusReported )
+        {
+            StatusReported = true;
+            boolean              send        = UnityInitialize;
+            List<StatusCallback> initialized = TakeCallbacks( InitializeCallbacks );
+            RunOnUiThread( () -> DoLoadForm( false, send, initialized ) );
+        }
+    }
+    
+    // the backoff timer and the network watcher both call it, the first one of the pending retry does it
+    private static void RetryInfoUpdate( int retryId )
+    {
+        if( !InfoUpdateRetryPending || retryId != InfoUpdateRetryId )
+            return;
+        InfoUpdateRetryPending = false;
+        CancelRetryTimer();
+        
+        state.set( state.get().withPhase( ConsentState.Phase.UPDATING ) );
+        RequestInfoUpdate();
+    }
+    
+    private static void CancelRetryTimer()
+    {
+        if( InfoUpdateRetryTimer != null )
+            InfoUpdateRetryTimer.cancel( false );
+        InfoUpdateRetryTimer = null;
+    }
+    
+    private static void OnInfoUpdateDeadline()
+    {
+        if( StatusReported || InfoUpdateDone )
+            return;
+        StatusReported = true;
+        
+        // complete Initialize with the status of the previous session
+        logInfo("consent info update timed out, use the last known status");
+        ConsentChangeNotifier.notifyChanged();
+        int status = GetConsentStatus();
+        if( UnityInitialize )
+            SendStatusMessage( status );
+        CompleteCallbacks( TakeCallbacks( InitializeCallbacks ), status );
+    }
+    
     /**
-     * returns the value of consentInformation.canRequestAds()
+     * "1;status" when the consent info update succeeded, "0;errorCode" when it failed for good
+     */
+    private static void SendInfoUpdatedMessage( boolean success, int value )
+    {
+        logInfo( "SendInfoUpdatedMessage " + success + " " + value );
+        UnityPlayer.UnitySendMessage( "GoogleUserMessagingPlatform", "OnConsentInfoUpdatedMessage", (success ? "1;" : "0;") + value );
+    }
+    
+    /**
+     * the record of the previous launch, only until the consent info is updated and only if it was made
+     * for the current TC string. null if it must not be used
+     */
+    private static ConsentCache.Record CachedRecord( ConsentState current )
+    {
+        // never reads the preferences, not used until the snapshot is loaded to check the TC string
+        return CachedRecord( current, GDRPHelper.peekSnapshot() );
+    }
+    
+    private static ConsentCache.Record CachedRecord( ConsentState current, ConsentSnapshot snapshot )
+    {
+        return current.updated ? null : ConsentCache.get( snapshot );
+    }
+    
+    /**
+     * true once requestConsentInfoUpdate succeeded
+     */
+    static boolean isConsentUpdated()
+    {
+        return state.get().updated;
+    }
+    
+    /**
+     * returns the value of consentInformation.canRequestAds(), as of the last status update.
+     * before the consent info is updated, the value of the previous launch if the consent did not change since
      */
     public static boolean GetCanRequestAds()
     {
-        if( IsInit )
-            return consentInformation.canRequestAds();
-        return false;
+        ConsentState        current = state.get();
+        ConsentCache.Record cached  = CachedRecord( current );
+        boolean             result  = cached != null ? cached.canRequestAds() : current.canRequestAds;
+        Trace( ConsentLog.GET_CAN_REQUEST_ADS, 0, result );
+        return result;
     }
     
     /**
@@ -177,15 +481,10 @@ public class GoogleUserMessagingPlatform
      */
     public static boolean GetCanShowAds()
     {
-        if( DebugMode )
-        {
-            String vc = GDRPHelper.getVendorConsents();
-            String pc = GDRPHelper.getPurposeConsents();
-            String ac = GDRPHelper.getAddtlConsent();
-            logInfo("GetCanShowAds "+pc+" "+vc+" "+ac);
-        }
-        
-        return !GDRPHelper.isGDPR() || GDRPHelper.canShowAds();
+        ConsentSnapshot snapshot = GDRPHelper.getSnapshot();
+        boolean         result   = !snapshot.gdprApplies || snapshot.canShowAds;
+        Trace( ConsentLog.GET_CAN_SHOW_ADS, 0, result );
+        return result;
     }
     
     /**
@@ -193,48 +492,34 @@ public class GoogleUserMessagingPlatform
      */
     public static boolean GetCanShowPresonalizedAds()
     {
-        if( DebugMode )
-        {
-            String vc = GDRPHelper.getVendorConsents();
-            String pc = GDRPHelper.getPurposeConsents();
-            String ac = GDRPHelper.getAddtlConsent();
-            logInfo("GetCanShowPresonalizedAds "+pc+" "+vc+" "+ac);
-        }
-
-        return !GDRPHelper.isGDPR() || GDRPHelper.canShowPersonalizedAds();
+        ConsentSnapshot snapshot = GDRPHelper.getSnapshot();
+        boolean         result   = !snapshot.gdprApplies || snapshot.canShowPersonalizedAds;
+        Trace( ConsentLog.GET_CAN_SHOW_PERSONALIZED_ADS, 0, result );
+        return result;
     }
     
     public static boolean GetFirebase_ad_storage()
     {
-        if( DebugMode )
-        {
-            String pc = GDRPHelper.getPurposeConsents();
-            logInfo("GetFirebase_ad_storage "+pc);
-        }
-
-        return !GDRPHelper.isGDPR() || GDRPHelper.getFirebase_ad_storage();
+        ConsentSnapshot snapshot = GDRPHelper.getSnapshot();
+        boolean         result   = !snapshot.gdprApplies || snapshot.firebaseAdStorage;
+        Trace( ConsentLog.GET_FIREBASE_AD_STORAGE, 0, result );
+        return result;
     }
     
     public static boolean GetFirebase_ad_personalization()
     {
-        if( DebugMode )
-        {
-            String pc = GDRPHelper.getPurposeConsents();
-            logInfo("GetFirebase_ad_personalization "+pc);
-        }
-
-        return !GDRPHelper.isGDPR() || GDRPHelper.getFirebase_ad_personalization();
+        ConsentSnapshot snapshot = GDRPHelper.getSnapshot();
+        boolean         result   = !snapshot.gdprApplies || snapshot.firebaseAdPersonalization;
+        Trace( ConsentLog.GET_FIREBASE_AD_PERSONALIZATION, 0, result );
+        return result;
     }
     
     public static boolean GetFirebase_ad_user_data()
     {
-        if( DebugMode )
-        {
-            String pc = GDRPHelper.getPurposeConsents();
-            logInfo("GetFirebase_ad_user_data "+pc);
-        }
-
-        return !GDRPHelper.isGDPR() || GDRPHelper.getFirebase_ad_user_data();
+        ConsentSnapshot snapshot = GDRPHelper.getSnapshot();
+        boolean         result   = !snapshot.gdprApplies || snapshot.firebaseAdUserData;
+        Trace( ConsentLog.GET_FIREBASE_AD_USER_DATA, 0, result );
+        return result;
     }
     
     /**
@@ -242,17 +527,76 @@ public class GoogleUserMessagingPlatform
      */
     public static boolean GetGDPRRequired()
     {
-        if( DebugMode )
-        {
-            String vc = GDRPHelper.getVendorConsents();
-            String pc = GDRPHelper.getPurposeConsents();
-            String ac = GDRPHelper.getAddtlConsent();
-            logInfo("GetGDPRRequired "+pc+" "+vc+" "+ac);
-        }
-        
-        return GDRPHelper.isGDPR();
+        ConsentSnapshot snapshot = GDRPHelper.getSnapshot();
+        boolean         result   = snapshot.gdprApplies;
+        Trace( ConsentLog.GET_GDPR_REQUIRED, 0, result );
+        return result;
+    }
+    
+    // -- CONSENT FLAGS ------------------------------------------------------------------------------------------------
+
+    // bits packed by GetConsentFlags, must match the ConsentFlags enum on the C# side
+    public static final long FLAG_GDPR_APPLIES                = 1L;
+    public static final long FLAG_CAN_REQUEST_ADS             = 1L << 1;
+    public static final long FLAG_CAN_SHOW_ADS                = 1L << 2;
+    public static final long FLAG_CAN_SHOW_PERSONALIZED_ADS   = 1L << 3;
+    public static final long FLAG_FIREBASE_AD_STORAGE         = 1L << 4;
+    public static final long FLAG_FIREBASE_AD_USER_DATA       = 1L << 5;
+    public static final long FLAG_FIREBASE_AD_PERSONALIZATION = 1L << 6;
+    public static final long FLAG_FORM_AVAILABLE              = 1L << 7;
+    public static final long FLAG_INITIALIZED                 = 1L << 8;
+    // CAN_REQUEST_ADS and the status come from the previous launch, the consent info is not updated yet
+    public static final long FLAG_CACHED                      = 1L << 9;
+    // the consent status is stored in the bits 32 to 39
+    public static final int  STATUS_SHIFT                     = 32;
+
+    /**
+     * returns every consent decision and the consent status packed in a single value,
+     * so Unity can get all of them with one JNI call
+     */
+    public static long GetConsentFlags()
+    {
+        long flags = ConsentFlags();
+        Trace( ConsentLog.GET_CONSENT_FLAGS, 0, flags );
+        return flags;
     }
     
+    /**
+     * GetConsentFlags for the plugin itself, not counted nor logged as a Unity call
+     */
+    static long ConsentFlags()
+    {
+        return ConsentFlags( GDRPHelper.getSnapshot() );
+    }
+    
+    /**
+     * the consent flags computed from this snapshot, for the callers that also use it
+     */
+    static long ConsentFlags( ConsentSnapshot snapshot )
+    {
+        ConsentState current = state.get();
+        boolean      gdpr    = snapshot.gdprApplies;
+        
+        ConsentCache.Record cached        = CachedRecord( current, snapshot );
+        boolean             canRequestAds = cached != null ? cached.canRequestAds() : current.canRequestAds;
+        int                 status        = cached != null ? cached.status          : current.status;
+
+        long flags = 0;
+        if( gdpr )                                          flags |= FLAG_GDPR_APPLIES;
+        if( canRequestAds )                                 flags |= FLAG_CAN_REQUEST_ADS;
+        if( !gdpr || snapshot.canShowAds )                  flags |= FLAG_CAN_SHOW_ADS;
+        if( !gdpr || snapshot.canShowPersonalizedAds )      flags |= FLAG_CAN_SHOW_PERSONALIZED_ADS;
+        if( !gdpr || snapshot.firebaseAdStorage )           flags |= FLAG_FIREBASE_AD_STORAGE;
+        if( !gdpr || snapshot.firebaseAdUserData )          flags |= FLAG_FIREBASE_AD_USER_DATA;
+        if( !gdpr || snapshot.firebaseAdPersonalization )   flags |= FLAG_FIREBASE_AD_PERSONALIZATION;
+        if( current.formAvailable )                         flags |= FLAG_FORM_AVAILABLE;
+        if( current.isInitialized() )                       flags |= FLAG_INITIALIZED;
+        if( cached != null )                                flags |= FLAG_CACHED;
+
+        flags |= ((long)(status & 0xFF)) << STATUS_SHIFT;
+        return flags;
+    }
+
     /**
      * récupérer le string purpose consent
      */
@@ -298,15 +642,29 @@ public class GoogleUserMessagingPlatform
      */
     public static boolean GetConsentForVendor(int vendorID)
     {
-        if( DebugMode )
+        boolean consent = GDRPHelper.getSnapshot().hasVendorConsent(vendorID);
+        Trace( ConsentLog.GET_CONSENT_FOR_VENDOR, vendorID, consent );
+        
+        return consent;
+    }
+    
+    /**
+     * recuperer le status de consentement pour une liste de vendors en un seul appel
+     * le bit i du resultat correspond a vendorIDs[i]
+     */
+    public static long[] GetConsentForVendors(int[] vendorIDs)
+    {
+        ConsentSnapshot snapshot = GDRPHelper.getSnapshot();
+        long[]          result   = new long[(vendorIDs.length + 63) >>> 6];
+        for( int i=0; i<vendorIDs.length; i++ )
         {
-            String vc = GDRPHelper.getVendorConsents();
-            String pc = GDRPHelper.getPurposeConsents();
-            String ac = GDRPHelper.getAddtlConsent();
-            logInfo("GetConsentForVendor "+pc+" "+vc+" "+ac);
+            if( snapshot.hasVendorConsent(vendorIDs[i]) )
+                result[i >>> 6] |= 1L << i;
         }
         
-        return GDRPHelper.isVendorAutorized(Integer.valueOf(vendorID));
+        Trace( ConsentLog.GET_CONSENT_FOR_VENDORS, vendorIDs.length, result.length > 0 ? result[0] : 0 );
+        
+        return result;
     }
     
     /**
@@ -314,15 +672,190 @@ public class GoogleUserMessagingPlatform
      */
     public static boolean GetConsentForAdditional(int vendorID)
     {
-        if( DebugMode )
+        boolean consent = GDRPHelper.getSnapshot().addtlConsentIndex.isConsented(vendorID);
+        Trace( ConsentLog.GET_CONSENT_FOR_ADDITIONAL, vendorID, consent );
+        
+        return consent;
+    }
+    
+    /**
+     * recuperer le status de consentement pour une liste d'ATP (google additional ids) en un seul appel
+     * le bit i du resultat correspond a externalIDs[i]
+     */
+    public static long[] GetConsentForAdditionals(int[] externalIDs)
+    {
+        AddtlConsent addtlConsent = GDRPHelper.getSnapshot().addtlConsentIndex;
+        long[]       result       = new long[(externalIDs.length + 63) >>> 6];
+        for( int i=0; i<externalIDs.length; i++ )
+        {
+            if( addtlConsent.isConsented(externalIDs[i]) )
+                result[i >>> 6] |= 1L << i;
+        }
+        
+        Trace( ConsentLog.GET_CONSENT_FOR_ADDITIONALS, externalIDs.length, result.length > 0 ? result[0] : 0 );
+        
+        return result;
+    }
+    
+    // -- POLICIES -----------------------------------------------------------------------------------------------------
+    
+    /**
+     * register a named consent policy and returns its ID, registering again the same name replaces it.
+     * the policy is granted when every purpose of purposesConsent is consented, every purpose of purposesConsentOrLI
+     * is consented or has a legitimate interest, every vendor of vendors and every ATP of atps are consented.
+     * null arrays mean no requirement
+     */
+    public static int RegisterPolicy( String name, int[] purposesConsent, int[] purposesConsentOrLI, int[] vendors, int[] atps )
+    {
+        return ConsentPolicies.register( name, purposesConsent, purposesConsentOrLI, vendors, atps );
+    }
+    
+    /**
+     * true if the policy with this ID is granted (always true if GDPR does not apply)
+     */
+    public static boolean GetPolicy( int policyID )
+    {
+        boolean result = ConsentPolicies.get( policyID );
+        Trace( ConsentLog.GET_POLICY, policyID, result );
+        return result;
+    }
+    
+    /**
+     * results of every registered policy in a single call, bit N of the result is the policy with ID N
+     */
+    public static long[] GetPolicies()
+    {
+        long[] result = ConsentPolicies.getAll();
+        Trace( ConsentLog.GET_POLICIES, result.length, result.length > 0 ? result[0] : 0 );
+        return result;
+    }
+    
+    // -- GLOBAL VENDOR LIST -------------------------------------------------------------------------------------------
+    
+    /**
+     * compile a GVL JSON file into an index file for LoadGlobalVendorList, reads and writes files on the calling thread
+     */
+    public static boolean CompileGlobalVendorList( String jsonPath, String indexPath )
+    {
+        try
+        {
+            GlobalVendorList.compile( new File( jsonPath ), new File( indexPath ) );
+            return true;
+        }
+        catch( Exception e )
+        {
+            logError("CompileGlobalVendorList ERROR: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * memory-map a compiled vendor list index, used by GetVendorAllowed
+     */
+    public static boolean LoadGlobalVendorList( String indexPath )
+    {
+        try
         {
-            String vc = GDRPHelper.getVendorConsents();
-            String pc = GDRPHelper.getPurposeConsents();
-            String ac = GDRPHelper.getAddtlConsent();
-            logInfo("GetConsentForAdditional "+pc+" "+vc+" "+ac);
+            GlobalVendorList list = GlobalVendorList.map( new File( indexPath ) );
+            GDRPHelper.setGlobalVendorList( list );
+            logInfo("LoadGlobalVendorList version " + list.vendorListVersion + ", " + list.vendorCount + " vendors");
+            return true;
+        }
+        catch( IOException e )
+        {
+            logError("LoadGlobalVendorList ERROR: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * true if the vendor may process data for every purpose it declares in the vendor list, with the legal basis
+     * the publisher restrictions require for its flexible purposes (always true if GDPR does not apply),
+     * false if no vendor list is loaded or if the vendor is not in it
+     */
+    public static boolean GetVendorAllowed( int vendorID )
+    {
+        ConsentSnapshot  snapshot = GDRPHelper.getSnapshot();
+        GlobalVendorList list     = GDRPHelper.getGlobalVendorList();
+        boolean          result   = list != null && (!snapshot.gdprApplies || GDRPHelper.isVendorAllowed( snapshot, list, vendorID ));
+        Trace( ConsentLog.GET_VENDOR_ALLOWED, vendorID, result );
+        return result;
+    }
+    
+    /**
+     * GetVendorAllowed for a list of vendors in a single call, bit i of the result is vendorIDs[i]
+     */
+    public static long[] GetVendorsAllowed( int[] vendorIDs )
+    {
+        ConsentSnapshot  snapshot = GDRPHelper.getSnapshot();
+        GlobalVendorList list     = GDRPHelper.getGlobalVendorList();
+        long[]           result   = new long[(vendorIDs.length + 63) >>> 6];
+        if( list != null )
+        {
+            for( int i=0; i<vendorIDs.length; i++ )
+            {
+                if( !snapshot.gdprApplies || GDRPHelper.isVendorAllowed( snapshot, list, vendorIDs[i] ) )
+                    result[i >>> 6] |= 1L << i;
+            }
+        }
+        
+        Trace( ConsentLog.GET_VENDORS_ALLOWED, vendorIDs.length, result.length > 0 ? result[0] : 0 );
+        return result;
+    }
+    
+    // -- PUBLISHER RESTRICTIONS ---------------------------------------------------------------------------------------
+    
+    /**
+     * true if the vendor may process data for this purpose, once the publisher restrictions and the legal bases
+     * declared in the vendor list (if loaded) are applied. always true if GDPR does not apply
+     */
+    public static boolean GetVendorAllowedForPurpose( int vendorID, int purpose )
+    {
+        boolean result = !GDRPHelper.getSnapshot().gdprApplies || GDRPHelper.isVendorAllowedForPurpose( vendorID, purpose );
+        Trace( ConsentLog.GET_VENDOR_ALLOWED_FOR_PURPOSE, vendorID, result );
+        return result;
+    }
+    
+    /**
+     * which of these vendors may process data for this purpose, in a single call. bit i of the result is vendorIDs[i]
+     */
+    public static long[] GetVendorsAllowedForPurpose( int purpose, int[] vendorIDs )
+    {
+        boolean gdpr    = GDRPHelper.getSnapshot().gdprApplies;
+        long[]  allowed = GDRPHelper.getVendorsAllowedForPurpose( purpose );
+        long[]  result  = new long[(vendorIDs.length + 63) >>> 6];
+        for( int i=0; i<vendorIDs.length; i++ )
+        {
+            if( !gdpr || ConsentBits.get( allowed, vendorIDs[i] ) )
+                result[i >>> 6] |= 1L << i;
         }
         
-        return GDRPHelper.isAddtlConsentAutorized(Integer.valueOf(vendorID));
+        Trace( ConsentLog.GET_VENDORS_ALLOWED_FOR_PURPOSE, purpose, result.length > 0 ? result[0] : 0 );
+        return result;
+    }
+    
+    /**
+     * publisher restriction for this purpose and vendor: -1 none, 0 not allowed, 1 require consent, 2 require legitimate interest
+     */
+    public static int GetPublisherRestriction( int purpose, int vendorID )
+    {
+        return GDRPHelper.getPublisherRestriction( purpose, vendorID );
+    }
+    
+    /**
+     * purposes consented to the publisher, bit N = purpose N
+     */
+    public static long GetPublisherConsent()
+    {
+        return GDRPHelper.getPublisherConsentMask();
+    }
+    
+    /**
+     * purposes the publisher uses under legitimate interest, bit N = purpose N
+     */
+    public static long GetPublisherLI()
+    {
+        return GDRPHelper.getPublisherLIMask();
     }
     
     /**
@@ -330,15 +863,17 @@ public class GoogleUserMessagingPlatform
      */
     public static boolean IsFormAvailable()
     {
-        return FormAvailable;
+        return state.get().formAvailable;
     }
     
     /**
-     * get the consent status
+     * get the consent status, the one of the previous launch until the consent info is updated
      */
     public static int GetConsentStatus()
     {
-        return ConsentStatus;
+        ConsentState        current = state.get();
+        ConsentCache.Record cached  = CachedRecord( current );
+        return cached != null ? cached.status : current.status;
     }
     
     /**
@@ -348,53 +883,183 @@ public class GoogleUserMessagingPlatform
     {
         UnityPlayer.currentActivity.runOnUiThread(
             (Runnable) () -> {
-                DoLoadForm(forceShow,sendStatusToUnity);
+                DoLoadForm(forceShow,sendStatusToUnity,Collections.emptyList());
             });
     }
     
-    private static void DoLoadForm( boolean forceShow, boolean sendStatusToUnity )
+    // -- NATIVE CALLERS, the same flow with a callback instead of a Unity message ---------------------------------
+    
+    /**
+     * receives the consent status of a single request, on the UI thread
+     */
+    public interface StatusCallback
+    {
+        void onStatus( int status );
+    }
+    
+    // waiting for the status reported for Initialize, only used on the UI thread
+    private static final List<StatusCallback> InitializeCallbacks = new ArrayList<>();
+    
+    /**
+     * Initialize, the callback gets the status reported for Initialize (right away if it was already reported).
+     * nothing is sent to Unity for it
+     */
+    public static void Initialize( StatusCallback onComplete )
+    {
+        // posted before DoInitialize, the status cannot be reported in between
+        RunOnUiThread( () -> 
+        {
+            if( StatusReported )
+                onComplete.onStatus( GetConsentStatus() );
+            else
+                InitializeCallbacks.add( onComplete );
+        });
+        StartInitialize();
+        RunOnUiThread( GoogleUserMessagingPlatform::DoInitialize );
+    }
+    
+    /**
+     * LoadForm, the callback gets the status once the form is loaded, or once it is dismissed if show is true.
+     * nothing is sent to Unity for it
+     */
+    public static void LoadForm( boolean show, StatusCallback onComplete )
     {
-        if( !FormAvailable )
+        RunOnUiThread( () -> DoLoadForm( show, false, Collections.singletonList( onComplete ) ) );
+    }
+    
+    /**
+     * the caller is not interested anymore, the callback is not called if it was not already
+     */
+    public static void RemoveStatusCallback( StatusCallback callback )
+    {
+        RunOnUiThread( () -> 
         {
-            MajConsentStatus(sendStatusToUnity || forceShow);
+            InitializeCallbacks.remove( callback );
+            LoadCallbacks.remove( callback );
+            ShowCallbacks.remove( callback );
+            DismissCallbacks.remove( callback );
+        });
+    }
+    
+    private static List<StatusCallback> TakeCallbacks( List<StatusCallback> callbacks )
+    {
+        if( callbacks.isEmpty() )
+            return Collections.emptyList();
+        
+        List<StatusCallback> taken = new ArrayList<>( callbacks );
+        callbacks.clear();
+        return taken;
+    }
+    
+    private static void CompleteCallbacks( List<StatusCallback> callbacks, int status )
+    {
+        for( StatusCallback callback : callbacks )
+            callback.onStatus( status );
+    }
+    
+    // -- form cache, only used on the UI thread
+    
+    // a loaded form is kept for one hour, after that a new one is loaded
+    private static final long    FORM_EXPIRATION_MS = 60 * 60 * 1000;
+    private static       long    FormLoadedAt       = 0;
+    private static       boolean FormLoading        = false;
+    private static       boolean FormShowing        = false;
+    // what the Unity callers waiting for the form in flight asked for
+    private static       boolean PendingShow        = false;
+    private static       boolean PendingSendStatus  = false;
+    // the native callers waiting for the form in flight, to be loaded or to be dismissed
+    private static final List<StatusCallback> LoadCallbacks    = new ArrayList<>();
+    private static final List<StatusCallback> ShowCallbacks    = new ArrayList<>();
+    // waiting for the form on screen
+    private static       boolean              DismissSendStatus = false;
+    private static final List<StatusCallback> DismissCallbacks  = new ArrayList<>();
+    
+    /**
+     * callers are the native callers of the request, a form they show does not send the status to Unity
+     */
+    private static void DoLoadForm( boolean forceShow, boolean sendStatusToUnity, List<StatusCallback> callers )
+    {
+        boolean unityShow = forceShow && callers.isEmpty();
+        
+        ConsentState current = state.get();
+        if( !current.formAvailable )
+        {
+            int status = MajConsentStatus(sendStatusToUnity || unityShow);
+            CompleteCallbacks( callers, status );
                 
             logError("LoadForm FORM NOT AVAILABLE");
             return;
         }
+        
+        // a form is already loaded, use it right away
+        if( current.form != null && SystemClock.elapsedRealtime() - FormLoadedAt < FORM_EXPIRATION_MS )
+        {
+            logInfo("LoadForm use cached form");
+            
+            int status = MajConsentStatus(sendStatusToUnity);
+            if( forceShow ) 
+            {
+                DismissCallbacks.addAll( callers );
+                ShowLoadedForm( unityShow );
+            }
+            else
+            {
+                CompleteCallbacks( callers, status );
+            }
+            return;
+        }
+        
+        // concurrent requests are collapsed into the load in flight
+        PendingShow       |= unityShow;
+        PendingSendStatus |= sendStatusToUnity;
+        (forceShow ? ShowCallbacks : LoadCallbacks).addAll( callers );
+        if( FormLoading )
+        {
+            logInfo("LoadForm already loading");
+            return;
+        }
+        FormLoading = true;
+        state.set( current.withForm( null ).withPhase( ConsentState.Phase.FORM_LOADING ) );
     
+        ConsentMetrics.begin( ConsentMetrics.FORM_LOAD );
         UserMessagingPlatform.loadConsentForm(
             UnityPlayer.currentActivity, 
             consentForm -> 
             {
-                GoogleUserMessagingPlatform.consentForm = consentForm;
+                ConsentMetrics.success( ConsentMetrics.FORM_LOAD );
+                
+                state.set( state.get().withForm( consentForm ).withPhase( ConsentState.Phase.READY ) );
+                FormLoadedAt = SystemClock.elapsedRealtime();
+                FormLoading  = false;
                 
-                MajConsentStatus(sendStatusToUnity);
+                boolean              show   = TakePendingShow();
+                boolean              send   = TakePendingSendStatus();
+                List<StatusCallback> loaded = TakeCallbacks( LoadCallbacks );
+                List<StatusCallback> shown  = TakeCallbacks( ShowCallbacks );
                 
-                logInfo("onConsentFormLoadSuccess " + ConsentStatus);
+                int status = MajConsentStatus(send);
+                CompleteCallbacks( loaded, status );
                 
-                if( forceShow ) 
+                logInfo("onConsentFormLoadSuccess " + state.get().status);
+                
+                if( show || !shown.isEmpty() ) 
                 {
-                    consentForm.show( 
-                        UnityPlayer.currentActivity,
-                        showFormError ->
-                        {
-                            MajConsentStatus(true);
-                        
-                            if( showFormError != null )
-                            {
-                                logError("onConsentFormDismissed with error: "+showFormError.getMessage());
-                            }
-                            else
-                            {
-                                logInfo("onConsentFormDismissed "+ConsentStatus);
-                            }
-                        }
-                    );
-                 }
+                    DismissCallbacks.addAll( shown );
+                    ShowLoadedForm( show );
+                }
             },
             formError -> 
             {
-                MajConsentStatus(forceShow || sendStatusToUnity);
+                ConsentMetrics.error( ConsentMetrics.FORM_LOAD, formError.getErrorCode() );
+                
+                FormLoading  = false;
+                state.set( state.get().withPhase( ConsentState.Phase.ERROR ) );
+                boolean show = TakePendingShow();
+                boolean send = TakePendingSendStatus();
+                
+                int status = MajConsentStatus(show || send);
+                CompleteCallbacks( TakeCallbacks( LoadCallbacks ), status );
+                CompleteCallbacks( TakeCallbacks( ShowCallbacks ), status );
                 
                 // Handle the error.
                 logError("onConsentFormLoadFailure ERROR: "+formError.getMessage());
@@ -402,23 +1067,101 @@ public class GoogleUserMessagingPlatform
         );
     }
     
-    private static void MajConsentStatus( boolean sendToUnity )
+    private static boolean TakePendingShow()
+    {
+        boolean show = PendingShow;
+        PendingShow  = false;
+        return show;
+    }
+    
+    private static boolean TakePendingSendStatus()
+    {
+        boolean send      = PendingSendStatus;
+        PendingSendStatus = false;
+        return send;
+    }
+    
+    /**
+     * show the cached form, a form can only be shown once so the next one is preloaded after dismissal.
+     * the status is sent to Unity on dismissal if any Unity caller asked for the form on screen
+     */
+    private static void ShowLoadedForm( boolean sendStatusToUnity )
+    {
+        DismissSendStatus |= sendStatusToUnity;
+        if( FormShowing )
+        {
+            // the status will be sent when the form on screen is dismissed
+            logInfo("ShowLoadedForm form already on screen");
+            return;
+        }
+        
+        ConsentState current = state.get();
+        ConsentForm  form    = current.form;
+        state.set( current.withForm( null ) );
+        FormShowing = true;
+        
+        ConsentMetrics.begin( ConsentMetrics.FORM_SHOW );
+        form.show( 
+            UnityPlayer.currentActivity,
+            showFormError ->
+            {
+                FormShowing = false;
+                boolean send      = DismissSendStatus;
+                DismissSendStatus = false;
+                int status = MajConsentStatus(send);
+                CompleteCallbacks( TakeCallbacks( DismissCallbacks ), status );
+            
+                if( showFormError != null )
+                {
+                    ConsentMetrics.error( ConsentMetrics.FORM_SHOW, showFormError.getErrorCode() );
+                    logError("onConsentFormDismissed with error: "+showFormError.getMessage());
+                }
+                else
+                {
+                    ConsentMetrics.success( ConsentMetrics.FORM_SHOW );
+                    logInfo("onConsentFormDismissed "+state.get().status);
+                }
+                
+                // keep a form ready for the privacy options button
+                DoLoadForm( false, false, Collections.emptyList() );
+            }
+        );
+    }
+    
+    private static int MajConsentStatus( boolean sendToUnity )
+    {
+        int status = RefreshConsentStatus();
+        
+        // the status or the form availability may have changed
+        ConsentChangeNotifier.notifyChanged();
+        
+        // send the consent status to Unity if needed
+        if( sendToUnity )
+        {
+            SendStatusMessage( status );
+        }
+        return status;
+    }
+    
+    // publish the status and canRequestAds of the consent information, returns the status
+    private static int RefreshConsentStatus()
     {
+        ConsentState current = state.get();
+        if( !current.isInitialized() )
+            return current.status;
+        
         try
         {
             // try to update consent status. As no form is available, it should be NOT_REQUIRED
-            ConsentStatus = consentInformation.getConsentStatus();
+            ConsentInformation information = current.information;
+            current = current.withStatus( information.getConsentStatus(), information.canRequestAds() );
+            state.set( current );
         }
         catch( Exception e )
         {
             // if we can't get the updated consentStatus, we keep the previous one
             logError("MajConsentStatus: error getting consent status: " + e.getMessage());
         }
-        
-        // send the consent status to Unity if needed
-        if( sendToUnity )
-        {
-            SendStatusMessage( String.format("%d", ConsentStatus) );
-        }
+        return current.status;
     }
-}
\ No newline at end of file
+}
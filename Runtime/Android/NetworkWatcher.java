@@ -0,0 +1,71 @@
+package com.binouze;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.os.Build;
+
+/**
+ * Runs a task once when the device gets a network connection back.
+ * Needs the ACCESS_NETWORK_STATE permission (declared by the UMP SDK), does nothing without it or before Android 7.
+ */
+final class NetworkWatcher
+{
+    private static ConnectivityManager                 manager;
+    private static ConnectivityManager.NetworkCallback callback;
+
+    private NetworkWatcher() {}
+
+    /**
+     * run the task on the next connection, returns false if the device is already connected
+     * or if the connection can't be watched. a single task can wait at a time
+     */
+    static synchronized boolean whenConnected( Context ctx, Runnable task )
+    {
+        if( callback != null || ctx == null || Build.VERSION.SDK_INT < Build.VERSION_CODES.N )
+            return false;
+
+        ConnectivityManager cm = (ConnectivityManager) ctx.getApplicationContext().getSystemService( Context.CONNECTIVITY_SERVICE );
+        if( cm == null )
+            return false;
+
+        try
+        {
+            if( cm.getActiveNetwork() != null )
+                return false;
+
+            ConnectivityManager.NetworkCallback cb = new ConnectivityManager.NetworkCallback()
+            {
+                @Override
+                public void onAvailable( Network network )
+                {
+                    if( cancel( this ) )
+                        task.run();
+                }
+            };
+            manager  = cm;
+            callback = cb;
+            cm.registerDefaultNetworkCallback( cb );
+            return true;
+        }
+        catch( SecurityException e )
+        {
+            // ACCESS_NETWORK_STATE not granted
+            manager  = null;
+            callback = null;
+            return false;
+        }
+    }
+
+    // unregister the callback, returns false if it was already unregistered
+    private static synchronized boolean cancel( ConnectivityManager.NetworkCallback cb )
+    {
+        if( callback != cb )
+            return false;
+
+        manager.unregisterNetworkCallback( cb );
+        manager  = null;
+        callback = null;
+        return true;
+    }
+}
@@ -0,0 +1,271 @@
+package com.binouze;
+
+import android.content.SharedPreferences;
+
+/**
+ * Vendor x purpose permission matrix: row N is the bitset of the vendors that may process data for purpose N
+ * (bit V = vendor V), once the publisher restrictions are applied.
+ *
+ * For each vendor the legal basis of a purpose is the one declared in the Global Vendor List, changed by the
+ * IABTCF_PublisherRestrictions{N} key: 0 = not allowed, 1 = require consent, 2 = require legitimate interest
+ * (only for the flexible purposes of the vendor). The vendor may process purpose N if the user granted
+ * that basis for both the purpose and the vendor. Without a vendor list every vendor is assumed to declare
+ * every purpose with a flexible basis.
+ *
+ * The rows are rebuilt lazily: a change of a restriction key only marks its row dirty, any other consent
+ * change (new snapshot) or a new vendor list marks every row dirty. Readers get immutable rows without lock.
+ */
+final class PermissionMatrix
+{
+    static final String RESTRICTIONS_PREFIX = "IABTCF_PublisherRestrictions";
+
+    // purposes 1 to 24 in TCF v2, row 0 is unused
+    static final int MAX_PURPOSE = 24;
+
+    static final int RESTRICTION_NONE            = -1;
+    static final int RESTRICTION_NOT_ALLOWED     = 0;
+    static final int RESTRICTION_REQUIRE_CONSENT = 1;
+    static final int RESTRICTION_REQUIRE_LI      = 2;
+
+    private static final long[] NONE = ConsentBits.EMPTY;
+
+    // rows and what they were built from, immutable once published
+    private static final class Rows
+    {
+        final ConsentSnapshot  snapshot;
+        final GlobalVendorList vendorList;
+        final long[][]         rows;
+
+        Rows( ConsentSnapshot snapshot, GlobalVendorList vendorList, long[][] rows )
+        {
+            this.snapshot   = snapshot;
+            this.vendorList = vendorList;
+            this.rows       = rows;
+        }
+    }
+
+    // -- state, only used while holding the lock
+
+    // publisher restrictions per purpose and type: restrictions[purpose][type], null when not decoded yet
+    private final long[][][]       restrictions = new long[MAX_PURPOSE + 1][][];
+    // vendors declaring each purpose in the vendor list: declared[purpose][0 consent, 1 LI, 2 flexible]
+    private       long[][][]       declared;
+    // bit N = row N must be rebuilt
+    private       long             dirtyRows         = -1L;
+    private       long             dirtyRestrictions = -1L;
+
+    private volatile Rows    built = new Rows( null, null, new long[MAX_PURPOSE + 1][] );
+    // set when a row must be rebuilt, written after built
+    private volatile boolean dirty = true;
+
+    /**
+     * a restriction key changed, only its row will be rebuilt
+     */
+    synchronized void onRestrictionChanged( String key )
+    {
+        int purpose = parsePurpose( key );
+        if( purpose > 0 )
+        {
+            dirtyRestrictions |= 1L << purpose;
+            dirtyRows         |= 1L << purpose;
+        }
+        else
+        {
+            dirtyRestrictions = -1L;
+            dirtyRows         = -1L;
+        }
+        dirty = true;
+    }
+
+    /**
+     * every key may have changed (preferences cleared)
+     */
+    synchronized void invalidate()
+    {
+        dirtyRestrictions = -1L;
+        dirtyRows         = -1L;
+        dirty             = true;
+    }
+
+    /**
+     * bitset of the vendors that may process data for this purpose, do not modify it
+     */
+    long[] row( int purpose, SharedPreferences prefs, ConsentSnapshot snapshot, GlobalVendorList vendorList )
+    {
+        if( purpose <= 0 || purpose > MAX_PURPOSE )
+            return NONE;
+
+        Rows r = built;
+        if( dirty || r.snapshot != snapshot || r.vendorList != vendorList )
+            r = rebuild( prefs, snapshot, vendorList );
+        return r.rows[purpose];
+    }
+
+    /**
+     * publisher restriction type for this vendor and purpose, RESTRICTION_NONE if not restricted
+     */
+    synchronized int restriction( int purpose, int vendorID, SharedPreferences prefs )
+    {
+        if( purpose <= 0 || purpose > MAX_PURPOSE )
+            return RESTRICTION_NONE;
+
+        long[][] types = restrictions( purpose, prefs );
+        for( int type=RESTRICTION_NOT_ALLOWED; type<=RESTRICTION_REQUIRE_LI; type++ )
+        {
+            if( ConsentBits.get( types[type], vendorID ) )
+                return type;
+        }
+        return RESTRICTION_NONE;
+    }
+
+    private synchronized Rows rebuild( SharedPreferences prefs, ConsentSnapshot snapshot, GlobalVendorList vendorList )
+    {
+        Rows current = built;
+        if( current.snapshot != snapshot )
+            dirtyRows = -1L;
+        if( current.vendorList != vendorList )
+        {
+            declared  = vendorList != null ? declare( vendorList ) : null;
+            dirtyRows = -1L;
+        }
+        if( dirtyRows == 0 )
+        {
+            dirty = false;
+            return current;
+        }
+
+        long[][] rows = current.rows.clone();
+        for( int purpose=1; purpose<=MAX_PURPOSE; purpose++ )
+        {
+            if( (dirtyRows & (1L << purpose)) != 0 )
+                rows[purpose] = buildRow( purpose, restrictions( purpose, prefs ), snapshot );
+        }
+        dirtyRows = 0;
+
+        Rows updated = new Rows( snapshot, vendorList, rows );
+        built = updated;
+        dirty = false;
+        return updated;
+    }
+
+    // decode the restriction key of a purpose if it changed since the last decoding
+    private long[][] restrictions( int purpose, SharedPreferences prefs )
+    {
+        long bit = 1L << purpose;
+        if( restrictions[purpose] == null || (dirtyRestrictions & bit) != 0 )
+        {
+            restrictions[purpose] = parseRestrictions( prefs.getString( RESTRICTIONS_PREFIX + purpose, "" ) );
+            dirtyRestrictions &= ~bit;
+        }
+        return restrictions[purpose];
+    }
+
+    private long[] buildRow( int purpose, long[][] types, ConsentSnapshot snapshot )
+    {
+        boolean purposeConsent = (snapshot.purposeConsentMask & (1L << purpose)) != 0;
+        // purpose 1 can't be processed under legitimate interest
+        boolean purposeLI      = purpose != 1 && (snapshot.purposeLIMask & (1L << purpose)) != 0;
+
+        long[] vendorConsent = purposeConsent ? snapshot.vendorConsentBits : NONE;
+        long[] vendorLI      = purposeLI      ? snapshot.vendorLIBits      : NONE;
+        int    words         = Math.max( vendorConsent.length, vendorLI.length );
+        if( words == 0 )
+            return NONE;
+
+        long[] notAllowed     = types[RESTRICTION_NOT_ALLOWED];
+        long[] requireConsent = types[RESTRICTION_REQUIRE_CONSENT];
+        // invalid for purpose 1 (never under legitimate interest), the policy ignores it
+        long[] requireLI      = purpose != 1 ? types[RESTRICTION_REQUIRE_LI] : null;
+        long[] declConsent    = declared != null ? declared[purpose][0] : null;
+        long[] declLI         = declared != null ? declared[purpose][1] : null;
+        long[] flexible       = declared != null ? declared[purpose][2] : null;
+
+        long[] row = new long[words];
+        for( int i=0; i<words; i++ )
+        {
+            long r0 = word( notAllowed, i, 0 );
+            long r1 = word( requireConsent, i, 0 );
+            long r2 = word( requireLI, i, 0 );
+            long dc = word( declConsent, i, -1L );
+            long dl = word( declLI, i, -1L );
+            long fx = word( flexible, i, -1L );
+            long unrestricted = ~(r0 | r1 | r2);
+
+            long consentBasis = (unrestricted & dc) | (r1 & (dc | (dl & fx)));
+            long liBasis      = (unrestricted & dl) | (r2 & (dl | (dc & fx)));
+            row[i] = (consentBasis & word( vendorConsent, i, 0 )) | (liBasis & word( vendorLI, i, 0 ));
+        }
+        // vendor 0 does not exist
+        row[0] &= ~1L;
+        return row;
+    }
+
+    // value of a word, fallback for a null bitset, 0 past the end
+    private static long word( long[] bits, int index, long fallback )
+    {
+        if( bits == null )
+            return fallback;
+        return index < bits.length ? bits[index] : 0;
+    }
+
+    // bitsets of the vendors declaring each purpose: [purpose][0 consent, 1 LI, 2 flexible]
+    private static long[][][] declare( GlobalVendorList vendorList )
+    {
+        int        words  = (vendorList.maxVendorId >>> 6) + 1;
+        long[][][] result = new long[MAX_PURPOSE + 1][3][words];
+        for( int vendor=1; vendor<=vendorList.maxVendorId; vendor++ )
+        {
+            if( !vendorList.isListed( vendor ) )
+                continue;
+
+            int  consent  = vendorList.purposes( vendor );
+            int  li       = vendorList.legIntPurposes( vendor );
+            int  flexible = vendorList.flexiblePurposes( vendor );
+            long bit      = 1L << vendor;
+            for( int purpose=1; purpose<=MAX_PURPOSE; purpose++ )
+            {
+                int p = 1 << purpose;
+                if( (consent  & p) != 0 ) result[purpose][0][vendor >>> 6] |= bit;
+                if( (li       & p) != 0 ) result[purpose][1][vendor >>> 6] |= bit;
+                if( (flexible & p) != 0 ) result[purpose][2][vendor >>> 6] |= bit;
+            }
+        }
+        return result;
+    }
+
+    // "IABTCF_PublisherRestrictions3" -> 3, -1 if invalid
+    private static int parsePurpose( String key )
+    {
+        if( key == null || !key.startsWith( RESTRICTIONS_PREFIX ) )
+            return -1;
+        try
+        {
+            int purpose = Integer.parseInt( key.substring( RESTRICTIONS_PREFIX.length() ) );
+            return purpose > 0 && purpose <= MAX_PURPOSE ? purpose : -1;
+        }
+        catch( NumberFormatException e )
+        {
+            return -1;
+        }
+    }
+
+    // char i = restriction type of vendor i+1, any other char means not restricted
+    static long[][] parseRestrictions( String input )
+    {
+        int      length = input.length();
+        long[][] types  = new long[3][];
+        for( int type=0; type<3; type++ )
+            types[type] = length > 0 ? new long[(length >>> 6) + 1] : NONE;
+
+        for( int i=0; i<length; i++ )
+        {
+            int type = input.charAt(i) - '0';
+            if( type >= RESTRICTION_NOT_ALLOWED && type <= RESTRICTION_REQUIRE_LI )
+            {
+                int vendor = i + 1;
+                types[type][vendor >>> 6] |= 1L << vendor;
+            }
+        }
+        return types;
+    }
+}
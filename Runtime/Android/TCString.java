@@ -0,0 +1,74 @@
+package com.binouze;
+
+/**
+ * Decoded content of the IABTCF_TCString (TCF v2).
+ * Filled by TCStringDecoder, purposes/special features are masks (bit N = ID N)
+ * and vendors are bitsets (bit N = vendor N).
+ * @see https://github.com/InteractiveAdvertisingBureau/GDPR-Transparency-and-Consent-Framework/blob/master/TCFv2/IAB%20Tech%20Lab%20-%20Consent%20string%20and%20vendor%20list%20formats%20v2.md
+ */
+public final class TCString
+{
+    // -- core segment
+    public int     version;
+    public long    created;      // in milliseconds
+    public long    lastUpdated;  // in milliseconds
+    public int     cmpId;
+    public int     cmpVersion;
+    public int     consentScreen;
+    public int     consentLanguage;
+    public int     vendorListVersion;
+    public int     tcfPolicyVersion;
+    public boolean isServiceSpecific;
+    public boolean useNonStandardTexts;
+    public long    specialFeatureOptIns;
+    public long    purposesConsent;
+    public long    purposesLITransparency;
+    public boolean purposeOneTreatment;
+    public int     publisherCC;
+
+    public int     maxVendorConsentId;
+    long[]         vendorConsents = ConsentBits.EMPTY;
+    public int     maxVendorLIId;
+    long[]         vendorLI       = ConsentBits.EMPTY;
+
+    // -- disclosed vendors segment
+    public boolean hasDisclosedVendors;
+    public int     maxDisclosedVendorId;
+    long[]         disclosedVendors = ConsentBits.EMPTY;
+
+    // -- publisher TC segment
+    public boolean hasPublisherTC;
+    public long    pubPurposesConsent;
+    public long    pubPurposesLITransparency;
+    public int     numCustomPurposes;
+    public long    customPurposesConsent;
+    public long    customPurposesLITransparency;
+
+    public boolean hasVendorConsent( int vendorID )
+    {
+        return ConsentBits.get( vendorConsents, vendorID );
+    }
+
+    public boolean hasVendorLI( int vendorID )
+    {
+        return ConsentBits.get( vendorLI, vendorID );
+    }
+
+    public boolean isVendorDisclosed( int vendorID )
+    {
+        return ConsentBits.get( disclosedVendors, vendorID );
+    }
+
+    // reset the optional segments before a new decode
+    void resetSegments()
+    {
+        hasDisclosedVendors          = false;
+        maxDisclosedVendorId         = 0;
+        hasPublisherTC               = false;
+        pubPurposesConsent           = 0;
+        pubPurposesLITransparency    = 0;
+        numCustomPurposes            = 0;
+        customPurposesConsent        = 0;
+        customPurposesLITransparency = 0;
+    }
+}
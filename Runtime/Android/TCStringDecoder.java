@@ -0,0 +1,256 @@
+package com.binouze;
+
+import java.util.Arrays;
+
+/**
+ * Streaming decoder for the IABTCF_TCString.
+ * Bits are read straight from the base64url characters through a lookup table,
+ * no intermediate string or byte array is created. A decoder instance is reusable but not thread safe.
+ * @see https://github.com/InteractiveAdvertisingBureau/GDPR-Transparency-and-Consent-Framework/blob/master/TCFv2/IAB%20Tech%20Lab%20-%20Consent%20string%20and%20vendor%20list%20formats%20v2.md
+ */
+public final class TCStringDecoder
+{
+    // base64url value of each char, -1 if invalid (standard base64 '+' and '/' are accepted too)
+    private static final byte[] BASE64 = new byte[256];
+    static
+    {
+        Arrays.fill( BASE64, (byte)-1 );
+        for( int i=0; i<26; i++ )
+        {
+            BASE64['A'+i] = (byte)i;
+            BASE64['a'+i] = (byte)(26+i);
+        }
+        for( int i=0; i<10; i++ )
+            BASE64['0'+i] = (byte)(52+i);
+        BASE64['-'] = 62;
+        BASE64['+'] = 62;
+        BASE64['_'] = 63;
+        BASE64['/'] = 63;
+    }
+
+    private static final int SEGMENT_DISCLOSED_VENDORS = 1;
+    private static final int SEGMENT_PUBLISHER_TC      = 3;
+
+    // -- bit reader state
+    private CharSequence input;
+    private int          start;    // first char of the current segment
+    private int          end;      // end of the current segment (exclusive)
+    private int          bitPos;   // position in bits from start
+    private boolean      overflow; // true if we tried to read past the end of the segment
+
+    /**
+     * decode a TC string in a new TCString
+     * returns null if the string is empty or invalid
+     */
+    public static TCString parse( CharSequence tcString )
+    {
+        TCString result = new TCString();
+        return new TCStringDecoder().decode( tcString, result ) ? result : null;
+    }
+
+    /**
+     * read only the Created field of a TC string, in milliseconds
+     * returns -1 if the string is too short or invalid
+     */
+    public static long readCreated( CharSequence tcString )
+    {
+        TCStringDecoder decoder = new TCStringDecoder();
+        decoder.setSegment( tcString, 0, tcString.length() );
+        decoder.read( 6 );
+        long created = decoder.read( 36 ) * 100;
+        return decoder.overflow ? -1 : created;
+    }
+
+    /**
+     * decode a TC string into out, reusing its vendor arrays when they are large enough
+     * returns false if the string is empty, not a v2 TC string or truncated
+     */
+    public boolean decode( CharSequence tcString, TCString out )
+    {
+        if( tcString == null || tcString.length() == 0 )
+            return false;
+
+        int length  = tcString.length();
+        int coreEnd = indexOfDot( tcString, 0, length );
+
+        // -- core segment
+        setSegment( tcString, 0, coreEnd );
+
+        out.version = (int)read( 6 );
+        if( out.version != 2 )
+            return false;
+
+        out.created                = read( 36 ) * 100;
+        out.lastUpdated            = read( 36 ) * 100;
+        out.cmpId                  = (int)read( 12 );
+        out.cmpVersion             = (int)read( 12 );
+        out.consentScreen          = (int)read( 6 );
+        out.consentLanguage        = (int)read( 12 );
+        out.vendorListVersion      = (int)read( 12 );
+        out.tcfPolicyVersion       = (int)read( 6 );
+        out.isServiceSpecific      = read( 1 ) == 1;
+        out.useNonStandardTexts    = read( 1 ) == 1;
+        out.specialFeatureOptIns   = readMask( 12 );
+        out.purposesConsent        = readMask( 24 );
+        out.purposesLITransparency = readMask( 24 );
+        out.purposeOneTreatment    = read( 1 ) == 1;
+        out.publisherCC            = (int)read( 12 );
+
+        out.maxVendorConsentId = (int)read( 16 );
+        out.vendorConsents     = readVendors( out.maxVendorConsentId, out.vendorConsents );
+        out.maxVendorLIId      = (int)read( 16 );
+        out.vendorLI           = readVendors( out.maxVendorLIId, out.vendorLI );
+        // publisher restrictions are the last part of the core segment, they are read from IABTCF_PublisherRestrictions{ID}
+
+        if( overflow )
+            return false;
+
+        // -- optional segments
+        out.resetSegments();
+        int segmentStart = coreEnd + 1;
+        while( segmentStart < length )
+        {
+            int segmentEnd = indexOfDot( tcString, segmentStart, length );
+            setSegment( tcString, segmentStart, segmentEnd );
+
+            int type = (int)read( 3 );
+            if( type == SEGMENT_DISCLOSED_VENDORS )
+            {
+                out.maxDisclosedVendorId = (int)read( 16 );
+                out.disclosedVendors     = readVendors( out.maxDisclosedVendorId, out.disclosedVendors );
+                out.hasDisclosedVendors  = !overflow;
+            }
+            else if( type == SEGMENT_PUBLISHER_TC )
+            {
+                out.pubPurposesConsent           = readMask( 24 );
+                out.pubPurposesLITransparency    = readMask( 24 );
+                out.numCustomPurposes            = (int)read( 6 );
+                out.customPurposesConsent        = readMask( out.numCustomPurposes );
+                out.customPurposesLITransparency = readMask( out.numCustomPurposes );
+                out.hasPublisherTC               = !overflow;
+            }
+
+            segmentStart = segmentEnd + 1;
+        }
+
+        input = null;
+        return true;
+    }
+
+    // -- bit reader ---------------------------------------------------------------------------------------------------
+
+    private static int indexOfDot( CharSequence s, int from, int length )
+    {
+        for( int i=from; i<length; i++ )
+        {
+            if( s.charAt(i) == '.' )
+                return i;
+        }
+        return length;
+    }
+
+    private void setSegment( CharSequence s, int from, int to )
+    {
+        input    = s;
+        start    = from;
+        end      = to;
+        bitPos   = 0;
+        overflow = false;
+    }
+
+    // read up to 64 bits, MSB first
+    private long read( int count )
+    {
+        long value = 0;
+        while( count > 0 )
+        {
+            int index = start + bitPos / 6;
+            if( index >= end )
+            {
+                // missing bits are read as 0
+                overflow = true;
+                return value << count;
+            }
+
+            char c      = input.charAt( index );
+            int  sextet = c < 256 ? BASE64[c] : -1;
+            if( sextet < 0 )
+            {
+                overflow = true;
+                return value << count;
+            }
+
+            int available = 6 - bitPos % 6;
+            int take      = Math.min( available, count );
+            int bits      = (sextet >>> (available - take)) & ((1 << take) - 1);
+
+            value   = (value << take) | bits;
+            count  -= take;
+            bitPos += take;
+        }
+        return value;
+    }
+
+    // read a bitfield of count bits (first bit = ID 1) into a mask (bit N = ID N)
+    private long readMask( int count )
+    {
+        long field = read( count );
+        long mask  = 0;
+        for( int id=1; id<=count; id++ )
+        {
+            if( ((field >>> (count - id)) & 1) != 0 )
+                mask |= 1L << id;
+        }
+        return mask;
+    }
+
+    // read a vendor section (bitfield or range encoding) after its MaxVendorId
+    private long[] readVendors( int maxVendorId, long[] reuse )
+    {
+        int    words = (maxVendorId >>> 6) + 1;
+        long[] bits;
+        if( reuse.length >= words )
+        {
+            bits = reuse;
+            Arrays.fill( bits, 0 );
+        }
+        else
+        {
+            bits = new long[words];
+        }
+
+        boolean isRangeEncoding = read( 1 ) == 1;
+        if( !isRangeEncoding )
+        {
+            // bitfield, read it by chunks of 32 vendors
+            for( int id=1; id<=maxVendorId; )
+            {
+                int  count = Math.min( 32, maxVendorId - id + 1 );
+                long chunk = read( count );
+                while( chunk != 0 )
+                {
+                    int high   = 63 - Long.numberOfLeadingZeros( chunk );
+                    int vendor = id + (count - 1 - high);
+                    bits[vendor >>> 6] |= 1L << vendor;
+                    chunk &= ~(1L << high);
+                }
+                id += count;
+            }
+        }
+        else
+        {
+            int numEntries = (int)read( 12 );
+            for( int i=0; i<numEntries && !overflow; i++ )
+            {
+                boolean isRange = read( 1 ) == 1;
+                int     first   = (int)read( 16 );
+                int     last    = isRange ? (int)read( 16 ) : first;
+
+                last = Math.min( last, maxVendorId );
+                for( int vendor=Math.max( first, 1 ); vendor<=last; vendor++ )
+                    bits[vendor >>> 6] |= 1L << vendor;
+            }
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,77 @@
+package com.binouze;
+
+import android.util.Log;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Removes the consent keys when the TC string gets too old (365 days after its Created date).
+ * The expiry date is computed when the snapshot is decoded, so once per TC string change, and a single
+ * removal is scheduled on the background thread for that date. Nothing runs at launch unless the
+ * TC string already expired, the CMP then asks for the consent again.
+ */
+final class TCStringExpiry
+{
+    private static final String TAG = "GoogleUserMessagingPlatform::TCStringExpiry";
+
+    static final long MAX_AGE_MS = 365L * 24 * 60 * 60 * 1000;
+
+    // TC string the removal is scheduled for
+    private static long               tcHash;
+    private static long               expiresAt;
+    private static ScheduledFuture<?> task;
+
+    private TCStringExpiry() {}
+
+    /**
+     * a new snapshot was built, schedule the removal if its TC string changed
+     */
+    static synchronized void schedule( ConsentSnapshot snapshot )
+    {
+        if( snapshot.tcHash == tcHash && snapshot.tcExpiresAt == expiresAt )
+            return;
+
+        if( task != null )
+        {
+            task.cancel( false );
+            task = null;
+        }
+        tcHash    = snapshot.tcHash;
+        expiresAt = snapshot.tcExpiresAt;
+        if( expiresAt == 0 )
+            return;
+
+        task = ConsentExecutor.schedule( TCStringExpiry::expire, Math.max( 0, expiresAt - System.currentTimeMillis() ) );
+    }
+
+    // on the background thread
+    private static void expire()
+    {
+        long hash;
+        long deadline;
+        synchronized( TCStringExpiry.class )
+        {
+            task     = null;
+            hash     = tcHash;
+            deadline = expiresAt;
+        }
+
+        // the TC string changed since, its own snapshot scheduled its removal
+        if( GDRPHelper.getSnapshot().tcHash != hash )
+            return;
+
+        // the timer does not count the deep sleep and the clock may have been changed, check again
+        long now = System.currentTimeMillis();
+        if( now < deadline )
+        {
+            synchronized( TCStringExpiry.class )
+            {
+                if( tcHash == hash && task == null )
+                    task = ConsentExecutor.schedule( TCStringExpiry::expire, deadline - now );
+            }
+            return;
+        }
+
+        Log.i( TAG, TAG+":: TC string expired " + (now - deadline) / 1000 + "s ago, removing the consent keys" );
+        GDRPHelper.removeConsentKeys();
+    }
+}
@@ -12,7 +12,7 @@ using System.Globalization;
 using JetBrains.Annotations;
 using UnityEngine;
 
-#if UNITY_IOS
+#if UNITY_IOS || UNITY_ANDROID
 using System.Runtime.InteropServices;
 #endif
 
@@ -62,6 +62,315 @@ namespace com.binouze
         Liftoff    = 1423
     }
 
+    /// <summary>
+    /// consent decisions packed by the native plugin, see GoogleUserMessagingPlatform.GetConsentFlags
+    /// </summary>
+    [Flags]
+    public enum ConsentFlags : long
+    {
+        None                      = 0,
+        GDPRApplies               = 1L << 0,
+        CanRequestAds             = 1L << 1,
+        CanShowAds                = 1L << 2,
+        CanShowPersonalizedAds    = 1L << 3,
+        FirebaseAdStorage         = 1L << 4,
+        FirebaseAdUserData        = 1L << 5,
+        FirebaseAdPersonalization = 1L << 6,
+        FormAvailable             = 1L << 7,
+        Initialized               = 1L << 8,
+        /// <summary>
+        /// CanRequestAds and the status were saved by the previous launch, the consent info is not updated yet
+        /// </summary>
+        Cached                    = 1L << 9
+    }
+
+    /// <summary>
+    /// native consent lifecycle measures, see GoogleUserMessagingPlatform.GetMetrics.<br/>
+    /// durations are in nanoseconds of the device monotonic clock
+    /// </summary>
+    public readonly struct ConsentMetrics
+    {
+        public enum Operation
+        {
+            InfoUpdate = 0,
+            FormLoad   = 1,
+            FormShow   = 2
+        }
+
+        // must match the layout of ConsentMetrics.java
+        private const int LayoutVersion   = 2;
+        private const int Operations      = 3;
+        private const int ErrorCodes      = 8;
+        private const int CallIds         = 32;
+        private const int OffsetSinceInit = 1;
+        private const int OffsetFirstDone = 2;
+        private const int OffsetCount     = OffsetFirstDone + Operations;
+        private const int OffsetLast      = OffsetCount     + Operations;
+        private const int OffsetTotal     = OffsetLast      + Operations;
+        private const int OffsetCalls     = OffsetTotal     + Operations;
+        private const int OffsetErrors    = OffsetCalls     + CallIds;
+        private const int Size            = OffsetErrors    + Operations * ErrorCodes;
+
+        private readonly long[] values;
+
+        internal ConsentMetrics( long[] values )
+        {
+            this.values = values != null && values.Length >= Size && values[0] == LayoutVersion ? values : null;
+        }
+
+        /// <summary>
+        /// false if the native plugin did not return metrics (editor, iOS)
+        /// </summary>
+        public bool IsValid => values != null;
+
+        private long Get( int index ) => values != null ? values[index] : 0;
+
+        /// <summary>
+        /// time elapsed since Initialize was called
+        /// </summary>
+        public long SinceInitNs => Get( OffsetSinceInit );
+        /// <summary>
+        /// time between Initialize and the first success of this operation, 0 if it never succeeded
+        /// </summary>
+        public long FirstSuccessNs( Operation op ) => Get( OffsetFirstDone + (int)op );
+        /// <summary>
+        /// number of times this operation completed (success or error)
+        /// </summary>
+        public long Count( Operation op ) => Get( OffsetCount + (int)op );
+        /// <summary>
+        /// duration of the last completion of this operation
+        /// </summary>
+        public long LastDurationNs( Operation op ) => Get( OffsetLast + (int)op );
+        /// <summary>
+        /// sum of the durations of this operation
+        /// </summary>
+        public long TotalDurationNs( Operation op ) => Get( OffsetTotal + (int)op );
+        /// <summary>
+        /// number of failures of this operation with this FormError code (0 for the unknown codes)
+        /// </summary>
+        public long Errors( Operation op, int errorCode ) => errorCode >= 0 && errorCode < ErrorCodes ? Get( OffsetErrors + (int)op * ErrorCodes + errorCode ) : 0;
+        /// <summary>
+        /// number of native calls of a getter, identified by its debug log event id
+        /// </summary>
+        public long Calls( int eventId ) => eventId > 0 && eventId < CallIds ? Get( OffsetCalls + eventId ) : 0;
+    }
+
+    /// <summary>
+    /// a consent transition recorded by the native journal, see GoogleUserMessagingPlatform.ReadJournal
+    /// </summary>
+    public readonly struct ConsentJournalEntry
+    {
+        // must match ConsentJournal.java
+        internal const int Longs = 5;
+
+        /// <summary>
+        /// increases by one at each transition, never reused
+        /// </summary>
+        public readonly long          Sequence;
+        /// <summary>
+        /// time of the transition, in ms since the Unix epoch
+        /// </summary>
+        public readonly long          TimeMs;
+        /// <summary>
+        /// FNV-1a 64 hash of the TC string at the time of the transition
+        /// </summary>
+        public readonly long          TCStringHash;
+        /// <summary>
+        /// the consent flags after the transition
+        /// </summary>
+        public readonly ConsentFlags  Flags;
+        public readonly ConsentStatus OldStatus;
+        public readonly ConsentStatus NewStatus;
+
+        internal ConsentJournalEntry( long[] values, int offset )
+        {
+            Sequence     = values[offset];
+            TimeMs       = values[offset + 1];
+            TCStringHash = values[offset + 2];
+            Flags        = (ConsentFlags)(values[offset + 3] & 0xFFFFFFFFL);
+            OldStatus    = ToStatus( (int)(values[offset + 4] >> 32) );
+            NewStatus    = ToStatus( (int)values[offset + 4] );
+        }
+
+        private static ConsentStatus ToStatus( int statusint )
+        {
+            return Enum.IsDefined( typeof(ConsentStatus), statusint ) ? (ConsentStatus)statusint : ConsentStatus.UNKNOWN;
+        }
+    }
+
+    /// <summary>
+    /// the current consent state read from native memory, see GoogleUserMessagingPlatform.GetConsentStateView.<br/>
+    /// Refresh costs a single memory read when nothing changed and copies a few KB when the state changed,
+    /// without JNI call nor allocation, it can be called every frame. the getters return the values of the last
+    /// successful Refresh. use it from the main thread.
+    /// </summary>
+    public sealed class ConsentStateView
+    {
+        // must match ConsentSnapshotLayout.java
+        private const int Magic                 = 0x53504D55;
+        private const int LayoutVersion         = 1;
+        private const int VendorCapacity        = 4096;
+        private const int AtpCapacity           = 8192;
+        private const int OffsetMagic           = 0;
+        private const int OffsetVersion         = 4;
+        private const int OffsetSequence        = 8;
+        private const int OffsetCrc             = 16;
+        private const int OffsetBody            = 24;
+        private const int OffsetFlags           = 24;
+        private const int OffsetPurposeConsent  = 32;
+        private const int OffsetPurposeLI       = 40;
+        private const int OffsetSpecialFeatures = 48;
+        private const int OffsetTCHash          = 56;
+        private const int OffsetWrittenAt       = 64;
+        private const int OffsetMaxVendorId     = 72;
+        private const int OffsetMaxAtpId        = 76;
+        private const int OffsetVendorConsent   = 80;
+        private const int OffsetVendorLI        = OffsetVendorConsent + VendorCapacity / 8;
+        private const int OffsetAtp             = OffsetVendorLI      + VendorCapacity / 8;
+        private const int Size                  = OffsetAtp + AtpCapacity / 8;
+        private const int BodySize              = Size - OffsetBody;
+
+        // the native side holds the sequence odd for a few microseconds while it writes
+        private const int MaxAttempts = 100;
+
+        private static readonly uint[] CrcTable = BuildCrcTable();
+
+        // keeps the java buffer referenced as long as its address is used
+        private readonly object keepAlive;
+        private readonly IntPtr address;
+        // last consistent copy of the body and the one being filled
+        private          byte[] current = new byte[BodySize];
+        private          byte[] scratch = new byte[BodySize];
+
+        internal ConsentStateView( object buffer, IntPtr address )
+        {
+            keepAlive = buffer;
+            #if UNITY_ANDROID
+            this.address = address != IntPtr.Zero &&
+                           Marshal.ReadInt32( address, OffsetMagic )   == Magic &&
+                           Marshal.ReadInt32( address, OffsetVersion ) == LayoutVersion ? address : IntPtr.Zero;
+            #else
+            this.address = IntPtr.Zero;
+            #endif
+        }
+
+        /// <summary>
+        /// false if there is no native state (editor, iOS)
+        /// </summary>
+        public bool IsValid => address != IntPtr.Zero;
+
+        /// <summary>
+        /// increases each time the native state changes, 0 until the first successful Refresh
+        /// </summary>
+        public long Version { get; private set; }
+
+        /// <summary>
+        /// copy the native state if it changed since the last call, returns false if there is no state yet
+        /// or if no consistent copy could be made (the previous values are kept)
+        /// </summary>
+        public bool Refresh()
+        {
+            #if UNITY_ANDROID
+            if( address == IntPtr.Zero )
+                return false;
+
+            for( var attempt = 0; attempt < MaxAttempts; attempt++ )
+            {
+                var before = Marshal.ReadInt64( address, OffsetSequence );
+                if( before == 0 )
+                    return false;
+                if( before == Version )
+                    return true;
+                if( (before & 1) != 0 )
+                    continue;
+
+                var expected = (uint)Marshal.ReadInt32( address, OffsetCrc );
+                System.Threading.Thread.MemoryBarrier();
+                Marshal.Copy( IntPtr.Add( address, OffsetBody ), scratch, 0, BodySize );
+                System.Threading.Thread.MemoryBarrier();
+
+                // changed while copying, or torn between the body and the CRC
+                if( Marshal.ReadInt64( address, OffsetSequence ) != before || Crc32( scratch ) != expected )
+                    continue;
+
+                ( current, scratch ) = ( scratch, current );
+                Version = before;
+                return true;
+            }
+            #endif
+            return Version != 0;
+        }
+
+        private long GetLong( int offset ) => BitConverter.ToInt64( current, offset - OffsetBody );
+
+        private bool GetBit( int offset, int capacity, int id )
+        {
+            if( id <= 0 || id >= capacity )
+                return false;
+            return (current[offset - OffsetBody + (id >> 3)] & (1 << (id & 7))) != 0;
+        }
+
+        /// <summary>
+        /// the consent flags, as GoogleUserMessagingPlatform.GetConsentFlags
+        /// </summary>
+        public ConsentFlags Flags => (ConsentFlags)(GetLong( OffsetFlags ) & 0xFFFFFFFFL);
+        public ConsentStatus Status
+        {
+            get
+            {
+                var statusint = (int)((GetLong( OffsetFlags ) >> 32) & 0xFF);
+                return Enum.IsDefined( typeof(ConsentStatus), statusint ) ? (ConsentStatus)statusint : ConsentStatus.UNKNOWN;
+            }
+        }
+        public bool GdprApplies   => (Flags & ConsentFlags.GDPRApplies)   != 0;
+        public bool CanRequestAds => (Flags & ConsentFlags.CanRequestAds) != 0;
+        /// <summary>
+        /// FNV-1a 64 hash of the TC string the state was decoded from
+        /// </summary>
+        public long TCStringHash => GetLong( OffsetTCHash );
+        /// <summary>
+        /// time of the native update, in ms since the Unix epoch
+        /// </summary>
+        public long WrittenAtMs  => GetLong( OffsetWrittenAt );
+        /// <summary>
+        /// highest vendor ID with a consent or a legitimate interest, the vendors from 4096 are not in the view
+        /// </summary>
+        public int MaxVendorId   => BitConverter.ToInt32( current, OffsetMaxVendorId - OffsetBody );
+        /// <summary>
+        /// highest consented additional consent ID, the IDs from 8192 are not in the view
+        /// </summary>
+        public int MaxAtpId      => BitConverter.ToInt32( current, OffsetMaxAtpId - OffsetBody );
+
+        public bool HasPurposeConsent( int purpose )      => purpose > 0 && purpose < 64 && (GetLong( OffsetPurposeConsent )  & (1L << purpose)) != 0;
+        public bool HasPurposeLI( int purpose )           => purpose > 0 && purpose < 64 && (GetLong( OffsetPurposeLI )       & (1L << purpose)) != 0;
+        public bool HasSpecialFeatureOptIn( int feature ) => feature > 0 && feature < 64 && (GetLong( OffsetSpecialFeatures ) & (1L << feature)) != 0;
+        public bool HasVendorConsent( int vendorId )      => GetBit( OffsetVendorConsent, VendorCapacity, vendorId );
+        public bool HasVendorLI( int vendorId )           => GetBit( OffsetVendorLI,      VendorCapacity, vendorId );
+        public bool IsAtpConsented( int atpId )           => GetBit( OffsetAtp,           AtpCapacity,    atpId );
+
+        // CRC-32 (IEEE), as java.util.zip.CRC32
+        private static uint[] BuildCrcTable()
+        {
+            var table = new uint[256];
+            for( uint i = 0; i < 256; i++ )
+            {
+                var c = i;
+                for( var k = 0; k < 8; k++ )
+                    c = (c & 1) != 0 ? 0xEDB88320 ^ (c >> 1) : c >> 1;
+                table[i] = c;
+            }
+            return table;
+        }
+
+        private static uint Crc32( byte[] data )
+        {
+            var c = 0xFFFFFFFF;
+            for( var i = 0; i < data.Length; i++ )
+                c = CrcTable[(c ^ data[i]) & 0xFF] ^ (c >> 8);
+            return c ^ 0xFFFFFFFF;
+        }
+    }
+
     public class GoogleUserMessagingPlatform : MonoBehaviour
     {
         private const string AndroidClass = "com.binouze.GoogleUserMessagingPlatform";
@@ -88,6 +397,8 @@ namespace com.binouze
         }
 
         private static Action<ConsentStatus> OnStatusChanged;
+        private static Action<ConsentFlags, ConsentFlags> OnConsentChanged;
+        private static Action<bool, ConsentStatus>        OnConsentInfoUpdated;
         private static Action                OnFormClosed;
         private static bool                  LogEnabled;
 
@@ -158,252 +469,828 @@ namespace com.binouze
 
         private static void Log( string str )
         {
-            if( LogEnabled )
-                Debug.Log( $"[GoogleUserMessagingPlatform] {str}" );
+            if( LogEnabled )
+                Debug.Log( $"[GoogleUserMessagingPlatform] {str}" );
+        }
+
+        /// <summary>
+        /// set it to true to enable plugin logs
+        /// </summary>
+        /// <param name="enabled"></param>
+        [UsedImplicitly]
+        public static void SetDebugLogging( bool enabled )
+        {
+            LogEnabled = enabled;
+
+            #if UNITY_EDITOR && !UMP_IMPLEMENTING
+            // nothing to do on editor
+            #elif UNITY_ANDROID
+
+            using var cls = new AndroidJavaClass( AndroidClass );
+            cls.CallStatic( "EnableDebugLogging", enabled );
+
+            #elif UNITY_IOS
+
+            _EnableDebugLogging( enabled );
+
+            #endif
+        }
+
+        /// <summary>
+        /// Android only: returns the native bridge calls recorded while debug logging is enabled
+        /// (the last 512 calls, one per line: "time event argument result")
+        /// </summary>
+        [UsedImplicitly]
+        public static string DumpDebugLog()
+        {
+            #if UNITY_EDITOR && !UMP_IMPLEMENTING
+            // nothing to do on editor
+            return "";
+            #elif UNITY_ANDROID
+
+            using var cls = new AndroidJavaClass( AndroidClass );
+            return cls.CallStatic<string>( "DumpDebugLog" );
+
+            #else
+            
+            return "";
+            
+            #endif
+        }
+
+        /// <summary>
+        /// Android only: clear the native bridge calls recorded so far
+        /// </summary>
+        [UsedImplicitly]
+        public static void ClearDebugLog()
+        {
+            #if UNITY_EDITOR && !UMP_IMPLEMENTING
+            // nothing to do on editor
+            #elif UNITY_ANDROID
+
+            using var cls = new AndroidJavaClass( AndroidClass );
+            cls.CallStatic( "ClearDebugLog" );
+
+            #endif
+        }
+
+        /// <summary>
+        /// Android only: returns the native consent lifecycle timings and call counters with a single native call
+        /// </summary>
+        [UsedImplicitly]
+        public static ConsentMetrics GetMetrics()
+        {
+            #if UNITY_EDITOR && !UMP_IMPLEMENTING
+            // nothing to do on editor
+            return default;
+            #elif UNITY_ANDROID
+
+            using var cls = new AndroidJavaClass( AndroidClass );
+            return new ConsentMetrics( cls.CallStatic<long[]>( "GetMetrics" ) );
+
+            #else
+            
+            return default;
+            
+            #endif
+        }
+
+        /// <summary>
+        /// Android only: returns at most max consent transitions recorded after afterSequence, oldest first.<br/>
+        /// the journal keeps the last 2048 transitions, to export it call again with the Sequence of the last entry
+        /// until the result is empty (start with 0)
+        /// </summary>
+        [UsedImplicitly]
+        public static ConsentJournalEntry[] ReadJournal( long afterSequence, int max )
+        {
+            #if UNITY_EDITOR && !UMP_IMPLEMENTING
+            // nothing to do on editor
+            return Array.Empty<ConsentJournalEntry>();
+            #elif UNITY_ANDROID
+
+            using var cls    = new AndroidJavaClass( AndroidClass );
+            var       values = cls.CallStatic<long[]>( "ReadJournal", afterSequence, max );
+            if( values == null )
+                return Array.Empty<ConsentJournalEntry>();
+
+            var entries = new ConsentJournalEntry[values.Length / ConsentJournalEntry.Longs];
+            for( var i = 0; i < entries.Length; i++ )
+                entries[i] = new ConsentJournalEntry( values, i * ConsentJournalEntry.Longs );
+            return entries;
+
+            #else
+            
+            return Array.Empty<ConsentJournalEntry>();
+            
+            #endif
+        }
+
+        private static ConsentStateView _stateView;
+
+        /// <summary>
+        /// Android only: returns a view of the native consent state, call its Refresh (every frame if needed)
+        /// then read the purposes, vendors and ATPs without JNI call nor the strings of GetVendorConsent etc.<br/>
+        /// the view of the editor and iOS is never valid
+        /// </summary>
+        [UsedImplicitly]
+        public static ConsentStateView GetConsentStateView()
+        {
+            if( _stateView != null )
+                return _stateView;
+
+            #if UNITY_EDITOR && !UMP_IMPLEMENTING
+            // nothing to do on editor
+            _stateView = new ConsentStateView( null, IntPtr.Zero );
+            #elif UNITY_ANDROID
+
+            using var cls    = new AndroidJavaClass( AndroidClass );
+            var       buffer = cls.CallStatic<AndroidJavaObject>( "GetStateBuffer" );
+            IntPtr    address;
+            unsafe
+            {
+                address = (IntPtr)AndroidJNI.GetDirectBufferAddress( buffer.GetRawObject() );
+            }
+            _stateView = new ConsentStateView( buffer, address );
+
+            #else
+            
+            _stateView = new ConsentStateView( null, IntPtr.Zero );
+            
+            #endif
+            return _stateView;
+        }
+
+        /// <summary>
+        /// Set debug options to be able to test form
+        /// </summary>
+        /// <param name="device">the debug device to test on</param>
+        /// <param name="forceReset">true to force reset the form datas</param>
+        /// <param name="debugGeography"></param>
+        [UsedImplicitly]
+        public static void SetDebugMode( string device, bool forceReset, DebugGeography debugGeography = DebugGeography.DEBUG_GEOGRAPHY_DISABLED )
+        {
+            #if UNITY_EDITOR && !UMP_IMPLEMENTING
+            // nothing to do on editor
+            #elif UNITY_ANDROID
+
+            using var cls = new AndroidJavaClass( AndroidClass );
+            cls.CallStatic( "SetDebugMode", device, forceReset, (int)debugGeography  );
+
+            #elif UNITY_IOS
+
+            _SetDebugMode( device, forceReset, (int)debugGeography );
+
+            #endif
+        }
+
+        /// <summary>
+        /// define if your app target users under the age of consent
+        /// </summary>
+        /// <param name="targetChildren"></param>
+        [UsedImplicitly]
+        public static void SetTargetChildren( bool targetChildren )
+        {
+            #if UNITY_EDITOR && !UMP_IMPLEMENTING
+            // nothing to do on editor
+            #elif UNITY_ANDROID
+
+            using var cls = new AndroidJavaClass( AndroidClass );
+            cls.CallStatic( "SetTargetChildren", targetChildren );
+
+            #elif UNITY_IOS
+
+            _SetTargetChildren( targetChildren );
+
+            #endif
+        }
+
+        /// <summary>
+        /// Android only: when enabled, any consent getter called before the native plugin finished
+        /// loading the consent preferences in background throws, instead of reading the disk on the calling thread.<br/>
+        /// Call it before Initialize, useful to check that your app does not block on disk I/O.
+        /// </summary>
+        [UsedImplicitly]
+        public static void SetStrictMode( bool strictMode )
+        {
+            #if UNITY_EDITOR && !UMP_IMPLEMENTING
+            // nothing to do on editor
+            #elif UNITY_ANDROID
+
+            using var cls = new AndroidJavaClass( AndroidClass );
+            cls.CallStatic( "SetStrictMode", strictMode );
+
+            #endif
+        }
+
+        /// <summary>
+        /// Android only: consent info update options, call it before Initialize.<br/>
+        /// After timeoutMs, Initialize completes with the consent status of the previous session instead of waiting
+        /// for the network (0 to always wait). A failed update is retried up to maxRetries times, with a delay
+        /// starting at initialBackoffMs and doubled at each retry (with a random jitter) up to maxBackoffMs,
+        /// or as soon as the connection is back when the device was offline.<br/>
+        /// Use SetOnConsentInfoUpdatedListener to know when the authoritative result arrives.
+        /// </summary>
+        [UsedImplicitly]
+        public static void SetInfoUpdateOptions( int timeoutMs, int maxRetries = 3, int initialBackoffMs = 2000, int maxBackoffMs = 60000 )
+        {
+            #if UNITY_EDITOR && !UMP_IMPLEMENTING
+            // nothing to do on editor
+            #elif UNITY_ANDROID
+
+            using var cls = new AndroidJavaClass( AndroidClass );
+            cls.CallStatic( "SetInfoUpdateOptions", (long)timeoutMs, maxRetries, (long)initialBackoffMs, (long)maxBackoffMs );
+
+            #endif
+        }
+
+        /// <summary>
+        /// returns the IABTCF_PurposeConsents tcf string
+        /// </summary>
+        [UsedImplicitly]
+        public static string GetPurposeConsent()
+        {
+            #if UNITY_EDITOR && !UMP_IMPLEMENTING
+            // nothing to do on editor
+            return "";
+            #elif UNITY_ANDROID
+
+            using var cls = new AndroidJavaClass( AndroidClass );
+            return cls.CallStatic<string>( "GetPurposeConsent" );
+
+            #elif UNITY_IOS
+
+            return _GetPurposeConsent();
+
+            #else
+            
+            return "";
+            
+            #endif
+        }
+
+        /// <summary>
+        /// returns the IABTCF_PurposeLegitimateInterests tcf string
+        /// </summary>
+        [UsedImplicitly]
+        public static string GetPurposeLegitimateInterest()
+        {
+            #if UNITY_EDITOR && !UMP_IMPLEMENTING
+            // nothing to do on editor
+            return "";
+            #elif UNITY_ANDROID
+
+            using var cls = new AndroidJavaClass( AndroidClass );
+            return cls.CallStatic<string>( "GetPurposeLI" );
+
+            #elif UNITY_IOS
+
+            return _GetPurposeLI();
+
+            #else
+            
+            return "";
+            
+            #endif
+        }
+
+        /// <summary>
+        /// returns the IABTCF_VendorConsents tcf string
+        /// </summary>
+        [UsedImplicitly]
+        public static string GetVendorConsent()
+        {
+            #if UNITY_EDITOR && !UMP_IMPLEMENTING
+            // nothing to do on editor
+            return "";
+            #elif UNITY_ANDROID
+
+            using var cls = new AndroidJavaClass( AndroidClass );
+            return cls.CallStatic<string>( "GetVendorConsent" );
+
+            #elif UNITY_IOS
+
+            return _GetVendorConsent();
+
+            #else
+            
+            return "";
+            
+            #endif
+        }
+
+        /// <summary>
+        /// returns the IABTCF_VendorLegitimateInterests tcf string
+        /// </summary>
+        [UsedImplicitly]
+        public static string GetVendorLegitimateInterest()
+        {
+            #if UNITY_EDITOR && !UMP_IMPLEMENTING
+            // nothing to do on editor
+            return "";
+            #elif UNITY_ANDROID
+
+            using var cls = new AndroidJavaClass( AndroidClass );
+            return cls.CallStatic<string>( "GetVendorLI" );
+
+            #elif UNITY_IOS
+
+            return _GetVendorLI();
+
+            #else
+            
+            return "";
+            
+            #endif
+        }
+
+        /// <summary>
+        /// returns the IABTCF_AddtlConsent tcf string
+        /// </summary>
+        [UsedImplicitly]
+        public static string GetAddtlConsent()
+        {
+            #if UNITY_EDITOR && !UMP_IMPLEMENTING
+            // nothing to do on editor
+            return "";
+            #elif UNITY_ANDROID
+
+            using var cls = new AndroidJavaClass( AndroidClass );
+            return cls.CallStatic<string>( "GetAddtlConsent" );
+
+            #elif UNITY_IOS
+
+            return _GetAddtlConsent();
+
+            #else
+            
+            return "";
+            
+            #endif
+        }
+
+        // the consent status is packed in the bits 32 to 39 of the native flags
+        private const int  StatusShift = 32;
+        private const long FlagsMask   = 0xFFFFFFFFL;
+
+        /// <summary>
+        /// the packed flags and the version they were read for, replaced as a whole so any thread reads a consistent pair
+        /// </summary>
+        private sealed class PackedConsentFlags
+        {
+            public readonly long Flags;
+            public readonly long Version;
+
+            public PackedConsentFlags( long flags, long version )
+            {
+                Flags   = flags;
+                Version = version;
+            }
+        }
+
+        private static PackedConsentFlags _packedConsentFlags;
+        // bumped each time the native plugin reports a change
+        private static long               _consentFlagsVersion;
+
+        /// <summary>
+        /// get all the consent decisions and the consent status with a single native call.<br/>
+        /// the value is cached until the native plugin reports a change, safe to call from any thread.
+        /// </summary>
+        private static long GetPackedConsentFlags()
+        {
+            var version = System.Threading.Interlocked.Read( ref _consentFlagsVersion );
+            var cached  = System.Threading.Volatile.Read( ref _packedConsentFlags );
+            if( cached != null && cached.Version == version )
+                return cached.Flags;
+
+            long flags;
+            #if UNITY_EDITOR && !UMP_IMPLEMENTING
+            // nothing to do on editor
+            flags = 0;
+            #elif UNITY_ANDROID
+
+            using var cls = new AndroidJavaClass( AndroidClass );
+            flags = cls.CallStatic<long>( "GetConsentFlags" );
+
+            #elif UNITY_IOS
+
+            var decisions = ConsentFlags.None;
+            if( _GetGDPRRequired() )                decisions |= ConsentFlags.GDPRApplies;
+            if( _GetCanRequestAds() )               decisions |= ConsentFlags.CanRequestAds;
+            if( _GetCanShowAds() )                  decisions |= ConsentFlags.CanShowAds;
+            if( _GetCanShowPersonalizedAds() )      decisions |= ConsentFlags.CanShowPersonalizedAds;
+            if( _GetFirebase_ad_storage() )         decisions |= ConsentFlags.FirebaseAdStorage;
+            if( _GetFirebase_ad_user_data() )       decisions |= ConsentFlags.FirebaseAdUserData;
+            if( _GetFirebase_ad_personalization() ) decisions |= ConsentFlags.FirebaseAdPersonalization;
+            if( _IsFormAvailable() )                decisions |= ConsentFlags.FormAvailable;
+            flags = (long)decisions | ((long)(int)_consentStatus << StatusShift);
+
+            #else
+            
+            flags = 0;
+            
+            #endif
+
+            // a change reported meanwhile bumped the version, the next call reads again
+            System.Threading.Volatile.Write( ref _packedConsentFlags, new PackedConsentFlags( flags, version ) );
+            return flags;
+        }
+
+        /// <summary>
+        /// force the next consent check to ask the native plugin again
+        /// </summary>
+        [UsedImplicitly]
+        public static void InvalidateConsentFlags()
+        {
+            System.Threading.Interlocked.Increment( ref _consentFlagsVersion );
+        }
+
+        /// <summary>
+        /// returns all the consent decisions at once
+        /// </summary>
+        [UsedImplicitly]
+        public static ConsentFlags GetConsentFlags()
+        {
+            return (ConsentFlags)(GetPackedConsentFlags() & FlagsMask);
+        }
+
+        /// <summary>
+        /// returns the consent status reported by the native plugin along with the consent flags
+        /// </summary>
+        [UsedImplicitly]
+        public static ConsentStatus GetNativeConsentStatus()
+        {
+            var statusint = (int)((GetPackedConsentFlags() >> StatusShift) & 0xFF);
+            return Enum.IsDefined( typeof(ConsentStatus), statusint ) ? (ConsentStatus)statusint : ConsentStatus.UNKNOWN;
+        }
+
+        private static bool HasConsentFlag( ConsentFlags flag )
+        {
+            return (GetPackedConsentFlags() & (long)flag) != 0;
+        }
+
+        /// <summary>
+        /// know if user accepted to share content with the vendor
+        /// https://vendor-list.consensu.org/v3/vendor-list.json
+        /// </summary>
+        [UsedImplicitly]
+        public static bool GetConsentForVendor( VendorsIds vendorID )
+        {
+            return GetConsentForVendor( (int)vendorID );
+        }
+        /// <summary>
+        /// know if user accepted to share content with the vendor
+        /// https://vendor-list.consensu.org/v3/vendor-list.json
+        /// </summary>
+        [UsedImplicitly]
+        public static bool GetConsentForVendor( int vendorID )
+        {
+            #if UNITY_EDITOR && !UMP_IMPLEMENTING
+            // nothing to do on editor
+            return false;
+            #elif UNITY_ANDROID
+
+            using var cls = new AndroidJavaClass( AndroidClass );
+            return cls.CallStatic<bool>( "GetConsentForVendor", vendorID );
+
+            #elif UNITY_IOS
+
+            return _GetConsentForVendor( vendorID );
+
+            #else
+            
+            return false;
+            
+            #endif
+        }
+        
+        /// <summary>
+        /// know if user accepted to share content with the vendor (google additianal id)
+        /// https://support.google.com/admanager/answer/9681920?hl=en
+        /// </summary>
+        [UsedImplicitly]
+        public static bool GetConsentForAdditional( ExternalIds vendorID )
+        {
+            return GetConsentForAdditional( (int)vendorID );
         }
-
         /// <summary>
-        /// set it to true to enable plugin logs
+        /// know if user accepted to share content with the vendor (google additianal id)
+        /// https://support.google.com/admanager/answer/9681920?hl=en
         /// </summary>
-        /// <param name="enabled"></param>
         [UsedImplicitly]
-        public static void SetDebugLogging( bool enabled )
+        public static bool GetConsentForAdditional( int vendorID )
         {
-            LogEnabled = enabled;
-
             #if UNITY_EDITOR && !UMP_IMPLEMENTING
             // nothing to do on editor
+            return false;
             #elif UNITY_ANDROID
 
             using var cls = new AndroidJavaClass( AndroidClass );
-            cls.CallStatic( "EnableDebugLogging", enabled );
+            return cls.CallStatic<bool>( "GetConsentForAdditional", vendorID );
 
             #elif UNITY_IOS
 
-            _EnableDebugLogging( enabled );
+            return _GetConsentForExternal( vendorID );
 
+            #else
+            
+            return false;
+            
             #endif
         }
 
         /// <summary>
-        /// Set debug options to be able to test form
+        /// know if user accepted to share content with each vendor of the list, with a single native call.<br/>
+        /// results[i] receives the consent for vendorIds[i], the results buffer can be reused between calls.
+        /// https://vendor-list.consensu.org/v3/vendor-list.json
         /// </summary>
-        /// <param name="device">the debug device to test on</param>
-        /// <param name="forceReset">true to force reset the form datas</param>
-        /// <param name="debugGeography"></param>
         [UsedImplicitly]
-        public static void SetDebugMode( string device, bool forceReset, DebugGeography debugGeography = DebugGeography.DEBUG_GEOGRAPHY_DISABLED )
+        public static void GetConsentForVendors( int[] vendorIds, bool[] results )
         {
+            if( results.Length < vendorIds.Length )
+                throw new ArgumentException( "results must be at least as long as vendorIds", nameof(results) );
+
             #if UNITY_EDITOR && !UMP_IMPLEMENTING
             // nothing to do on editor
+            Array.Clear( results, 0, vendorIds.Length );
             #elif UNITY_ANDROID
 
             using var cls = new AndroidJavaClass( AndroidClass );
-            cls.CallStatic( "SetDebugMode", device, forceReset, (int)debugGeography  );
+            UnpackConsents( cls.CallStatic<long[]>( "GetConsentForVendors", vendorIds ), results, vendorIds.Length );
 
             #elif UNITY_IOS
 
-            _SetDebugMode( device, forceReset, (int)debugGeography );
+            for( var i = 0; i < vendorIds.Length; i++ )
+                results[i] = _GetConsentForVendor( vendorIds[i] );
 
+            #else
+            
+            Array.Clear( results, 0, vendorIds.Length );
+            
             #endif
         }
 
         /// <summary>
-        /// define if your app target users under the age of consent
+        /// know if user accepted to share content with each vendor of the list (google additianal ids), with a single native call.<br/>
+        /// results[i] receives the consent for externalIds[i], the results buffer can be reused between calls.
+        /// https://support.google.com/admanager/answer/9681920?hl=en
         /// </summary>
-        /// <param name="targetChildren"></param>
         [UsedImplicitly]
-        public static void SetTargetChildren( bool targetChildren )
+        public static void GetConsentForAdditionals( int[] externalIds, bool[] results )
         {
+            if( results.Length < externalIds.Length )
+                throw new ArgumentException( "results must be at least as long as externalIds", nameof(results) );
+
             #if UNITY_EDITOR && !UMP_IMPLEMENTING
             // nothing to do on editor
+            Array.Clear( results, 0, externalIds.Length );
             #elif UNITY_ANDROID
 
             using var cls = new AndroidJavaClass( AndroidClass );
-            cls.CallStatic( "SetTargetChildren", targetChildren );
+            UnpackConsents( cls.CallStatic<long[]>( "GetConsentForAdditionals", externalIds ), results, externalIds.Length );
 
             #elif UNITY_IOS
 
-            _SetTargetChildren( targetChildren );
+            for( var i = 0; i < externalIds.Length; i++ )
+                results[i] = _GetConsentForExternal( externalIds[i] );
 
+            #else
+            
+            Array.Clear( results, 0, externalIds.Length );
+            
             #endif
         }
 
         /// <summary>
-        /// returns the IABTCF_PurposeConsents tcf string
+        /// Android only: compile a Global Vendor List JSON file (https://vendor-list.consensu.org/v3/vendor-list.json)
+        /// into a binary index file for LoadGlobalVendorList. Reads and writes the files on the calling thread.<br/>
+        /// The index can also be compiled at build time: gradle vendorList -Pvendorlist.args="vendor-list.json index-file" in Benchmarks~
         /// </summary>
         [UsedImplicitly]
-        public static string GetPurposeConsent()
+        public static bool CompileGlobalVendorList( string jsonPath, string indexPath )
         {
             #if UNITY_EDITOR && !UMP_IMPLEMENTING
             // nothing to do on editor
-            return "";
+            return false;
             #elif UNITY_ANDROID
 
             using var cls = new AndroidJavaClass( AndroidClass );
-            return cls.CallStatic<string>( "GetPurposeConsent" );
-
-            #elif UNITY_IOS
-
-            return _GetPurposeConsent();
+            return cls.CallStatic<bool>( "CompileGlobalVendorList", jsonPath, indexPath );
 
             #else
             
-            return "";
+            return false;
             
             #endif
         }
 
         /// <summary>
-        /// returns the IABTCF_PurposeLegitimateInterests tcf string
+        /// Android only: memory-map a vendor list index compiled by CompileGlobalVendorList, used by GetVendorAllowed
         /// </summary>
         [UsedImplicitly]
-        public static string GetPurposeLegitimateInterest()
+        public static bool LoadGlobalVendorList( string indexPath )
         {
             #if UNITY_EDITOR && !UMP_IMPLEMENTING
             // nothing to do on editor
-            return "";
+            return false;
             #elif UNITY_ANDROID
 
             using var cls = new AndroidJavaClass( AndroidClass );
-            return cls.CallStatic<string>( "GetPurposeLI" );
-
-            #elif UNITY_IOS
-
-            return _GetPurposeLI();
+            return cls.CallStatic<bool>( "LoadGlobalVendorList", indexPath );
 
             #else
             
-            return "";
+            return false;
             
             #endif
         }
 
         /// <summary>
-        /// returns the IABTCF_VendorConsents tcf string
+        /// Android only: true if the vendor may process data for every purpose it declares in the loaded vendor list:
+        /// consent for the vendor and its consent purposes, legitimate interest for the vendor and its LI purposes,
+        /// opt-in for its special features. The legal basis of a flexible purpose is the one required by the
+        /// publisher restrictions. Always true if GDPR does not apply.<br/>
+        /// false if no vendor list is loaded or if the vendor is not in it.
         /// </summary>
         [UsedImplicitly]
-        public static string GetVendorConsent()
+        public static bool GetVendorAllowed( int vendorId )
         {
             #if UNITY_EDITOR && !UMP_IMPLEMENTING
             // nothing to do on editor
-            return "";
+            return false;
             #elif UNITY_ANDROID
 
             using var cls = new AndroidJavaClass( AndroidClass );
-            return cls.CallStatic<string>( "GetVendorConsent" );
-
-            #elif UNITY_IOS
-
-            return _GetVendorConsent();
+            return cls.CallStatic<bool>( "GetVendorAllowed", vendorId );
 
             #else
             
-            return "";
+            return false;
             
             #endif
         }
 
         /// <summary>
-        /// returns the IABTCF_VendorLegitimateInterests tcf string
+        /// Android only: GetVendorAllowed for each vendor of the list with a single native call.<br/>
+        /// results[i] receives the result for vendorIds[i], the results buffer can be reused between calls.
         /// </summary>
         [UsedImplicitly]
-        public static string GetVendorLegitimateInterest()
+        public static void GetVendorsAllowed( int[] vendorIds, bool[] results )
+        {
+            if( results.Length < vendorIds.Length )
+                throw new ArgumentException( "results must be at least as long as vendorIds", nameof(results) );
+
+            #if UNITY_ANDROID && (!UNITY_EDITOR || UMP_IMPLEMENTING)
+
+            using var cls = new AndroidJavaClass( AndroidClass );
+            UnpackConsents( cls.CallStatic<long[]>( "GetVendorsAllowed", vendorIds ), results, vendorIds.Length );
+
+            #else
+
+            Array.Clear( results, 0, vendorIds.Length );
+
+            #endif
+        }
+
+        /// <summary>
+        /// Android only: true if the vendor may process data for this purpose, once the publisher restrictions
+        /// (IABTCF_PublisherRestrictions{purpose}) and the legal bases declared in the vendor list (if loaded) are applied.
+        /// Always true if GDPR does not apply.
+        /// </summary>
+        [UsedImplicitly]
+        public static bool GetVendorAllowedForPurpose( int vendorId, int purpose )
         {
             #if UNITY_EDITOR && !UMP_IMPLEMENTING
             // nothing to do on editor
-            return "";
+            return false;
             #elif UNITY_ANDROID
 
             using var cls = new AndroidJavaClass( AndroidClass );
-            return cls.CallStatic<string>( "GetVendorLI" );
-
-            #elif UNITY_IOS
-
-            return _GetVendorLI();
+            return cls.CallStatic<bool>( "GetVendorAllowedForPurpose", vendorId, purpose );
 
             #else
             
-            return "";
+            return false;
             
             #endif
         }
 
         /// <summary>
-        /// returns the IABTCF_AddtlConsent tcf string
+        /// Android only: which of these vendors may process data for this purpose, with a single native call.<br/>
+        /// results[i] receives the result for vendorIds[i], the results buffer can be reused between calls.
         /// </summary>
         [UsedImplicitly]
-        public static string GetAddtlConsent()
+        public static void GetVendorsAllowedForPurpose( int purpose, int[] vendorIds, bool[] results )
+        {
+            if( results.Length < vendorIds.Length )
+                throw new ArgumentException( "results must be at least as long as vendorIds", nameof(results) );
+
+            #if UNITY_ANDROID && (!UNITY_EDITOR || UMP_IMPLEMENTING)
+
+            using var cls = new AndroidJavaClass( AndroidClass );
+            UnpackConsents( cls.CallStatic<long[]>( "GetVendorsAllowedForPurpose", purpose, vendorIds ), results, vendorIds.Length );
+
+            #else
+
+            Array.Clear( results, 0, vendorIds.Length );
+
+            #endif
+        }
+
+        /// <summary>
+        /// Android only: publisher restriction for this purpose and vendor:
+        /// -1 none, 0 not allowed, 1 require consent, 2 require legitimate interest
+        /// </summary>
+        [UsedImplicitly]
+        public static int GetPublisherRestriction( int purpose, int vendorId )
         {
             #if UNITY_EDITOR && !UMP_IMPLEMENTING
             // nothing to do on editor
-            return "";
+            return -1;
             #elif UNITY_ANDROID
 
             using var cls = new AndroidJavaClass( AndroidClass );
-            return cls.CallStatic<string>( "GetAddtlConsent" );
-
-            #elif UNITY_IOS
-
-            return _GetAddtlConsent();
+            return cls.CallStatic<int>( "GetPublisherRestriction", purpose, vendorId );
 
             #else
             
-            return "";
+            return -1;
             
             #endif
         }
 
         /// <summary>
-        /// know if user accepted to share content with the vendor
-        /// https://vendor-list.consensu.org/v3/vendor-list.json
+        /// Android only: purposes consented to the publisher (IABTCF_PublisherConsent), bit N = purpose N
         /// </summary>
         [UsedImplicitly]
-        public static bool GetConsentForVendor( VendorsIds vendorID )
+        public static long GetPublisherConsent()
         {
-            return GetConsentForVendor( (int)vendorID );
+            #if UNITY_EDITOR && !UMP_IMPLEMENTING
+            // nothing to do on editor
+            return 0;
+            #elif UNITY_ANDROID
+
+            using var cls = new AndroidJavaClass( AndroidClass );
+            return cls.CallStatic<long>( "GetPublisherConsent" );
+
+            #else
+            
+            return 0;
+            
+            #endif
         }
+
         /// <summary>
-        /// know if user accepted to share content with the vendor
-        /// https://vendor-list.consensu.org/v3/vendor-list.json
+        /// Android only: purposes the publisher uses under legitimate interest (IABTCF_PublisherLegitimateInterests), bit N = purpose N
         /// </summary>
         [UsedImplicitly]
-        public static bool GetConsentForVendor( int vendorID )
+        public static long GetPublisherLegitimateInterest()
         {
             #if UNITY_EDITOR && !UMP_IMPLEMENTING
             // nothing to do on editor
-            return false;
+            return 0;
             #elif UNITY_ANDROID
 
             using var cls = new AndroidJavaClass( AndroidClass );
-            return cls.CallStatic<bool>( "GetConsentForVendor", vendorID );
-
-            #elif UNITY_IOS
-
-            return _GetConsentForVendor( vendorID );
+            return cls.CallStatic<long>( "GetPublisherLI" );
 
             #else
             
-            return false;
+            return 0;
             
             #endif
         }
-        
+
         /// <summary>
-        /// know if user accepted to share content with the vendor (google additianal id)
-        /// https://support.google.com/admanager/answer/9681920?hl=en
+        /// Android only: register a named consent policy, evaluated natively each time the consent changes.<br/>
+        /// It is granted when every purpose of purposesConsent is consented, every purpose of purposesConsentOrLI
+        /// is consented or has a legitimate interest, and every vendor and ATP (google additional id) is consented.<br/>
+        /// Returns the policy ID for GetPolicy, registering again the same name replaces it and keeps its ID.
+        /// Returns -1 if not supported.
         /// </summary>
+        /// <example>RegisterPolicy( "analytics", new[]{ 1, 8, 9 }, null, new[]{ 755 }, new[]{ 89 } )</example>
         [UsedImplicitly]
-        public static bool GetConsentForAdditional( ExternalIds vendorID )
+        public static int RegisterPolicy( string name, int[] purposesConsent, int[] purposesConsentOrLI = null, int[] vendors = null, int[] atps = null )
         {
-            return GetConsentForAdditional( (int)vendorID );
+            #if UNITY_EDITOR && !UMP_IMPLEMENTING
+            // nothing to do on editor
+            return -1;
+            #elif UNITY_ANDROID
+
+            using var cls = new AndroidJavaClass( AndroidClass );
+            return cls.CallStatic<int>( "RegisterPolicy", name, purposesConsent, purposesConsentOrLI, vendors, atps );
+
+            #else
+            
+            return -1;
+            
+            #endif
         }
+
         /// <summary>
-        /// know if user accepted to share content with the vendor (google additianal id)
-        /// https://support.google.com/admanager/answer/9681920?hl=en
+        /// Android only: true if the policy registered with this ID is granted (always true if GDPR does not apply)
         /// </summary>
         [UsedImplicitly]
-        public static bool GetConsentForAdditional( int vendorID )
+        public static bool GetPolicy( int policyId )
         {
             #if UNITY_EDITOR && !UMP_IMPLEMENTING
             // nothing to do on editor
@@ -411,11 +1298,7 @@ namespace com.binouze
             #elif UNITY_ANDROID
 
             using var cls = new AndroidJavaClass( AndroidClass );
-            return cls.CallStatic<bool>( "GetConsentForAdditional", vendorID );
-
-            #elif UNITY_IOS
-
-            return _GetConsentForExternal( vendorID );
+            return cls.CallStatic<bool>( "GetPolicy", policyId );
 
             #else
             
@@ -424,6 +1307,33 @@ namespace com.binouze
             #endif
         }
 
+        /// <summary>
+        /// Android only: results[i] receives the result of the policy with ID i, with a single native call.
+        /// the results buffer can be reused between calls
+        /// </summary>
+        [UsedImplicitly]
+        public static void GetPolicies( bool[] results )
+        {
+            Array.Clear( results, 0, results.Length );
+
+            #if UNITY_ANDROID && (!UNITY_EDITOR || UMP_IMPLEMENTING)
+
+            using var cls    = new AndroidJavaClass( AndroidClass );
+            var       packed = cls.CallStatic<long[]>( "GetPolicies" );
+            UnpackConsents( packed, results, Math.Min( results.Length, packed.Length * 64 ) );
+
+            #endif
+        }
+
+        /// <summary>
+        /// bit i of packed is the result for the index i
+        /// </summary>
+        private static void UnpackConsents( long[] packed, bool[] results, int count )
+        {
+            for( var i = 0; i < count; i++ )
+                results[i] = (packed[i >> 6] & (1L << (i & 63))) != 0;
+        }
+
         /// <summary>
         /// returns the value of consentInformation.canRequestAds().
         /// <br/><br/>
@@ -442,8 +1352,7 @@ namespace com.binouze
             return false;
             #elif UNITY_ANDROID
 
-            using var cls = new AndroidJavaClass( AndroidClass );
-            return cls.CallStatic<bool>( "GetCanRequestAds" );
+            return HasConsentFlag( ConsentFlags.CanRequestAds );
 
             #elif UNITY_IOS
 
@@ -468,8 +1377,7 @@ namespace com.binouze
             return false;
             #elif UNITY_ANDROID
 
-            using var cls = new AndroidJavaClass( AndroidClass );
-            return cls.CallStatic<bool>( "GetFirebase_ad_storage" );
+            return HasConsentFlag( ConsentFlags.FirebaseAdStorage );
 
             #elif UNITY_IOS
 
@@ -493,8 +1401,7 @@ namespace com.binouze
             return false;
             #elif UNITY_ANDROID
 
-            using var cls = new AndroidJavaClass( AndroidClass );
-            return cls.CallStatic<bool>( "GetFirebase_ad_user_data" );
+            return HasConsentFlag( ConsentFlags.FirebaseAdUserData );
 
             #elif UNITY_IOS
 
@@ -518,8 +1425,7 @@ namespace com.binouze
             return false;
             #elif UNITY_ANDROID
 
-            using var cls = new AndroidJavaClass( AndroidClass );
-            return cls.CallStatic<bool>( "GetFirebase_ad_personalization" );
+            return HasConsentFlag( ConsentFlags.FirebaseAdPersonalization );
 
             #elif UNITY_IOS
 
@@ -543,6 +1449,33 @@ namespace com.binouze
             OnStatusChanged = Listener;
         }
 
+        /// <summary>
+        /// Set a callback to be notified when the consent changes (TCF strings updated, consent status changed...)
+        /// without polling.<br/>
+        /// The first parameter contains the flags that changed, the second one the new flags.
+        /// Android only, changes in a short burst are reported as a single event.
+        /// </summary>
+        /// <param name="Listener"></param>
+        [UsedImplicitly]
+        public static void SetOnConsentChangedListener( Action<ConsentFlags, ConsentFlags> Listener )
+        {
+            OnConsentChanged = Listener;
+        }
+
+        /// <summary>
+        /// Set a callback to be notified when the consent info update completes, even after Initialize completed
+        /// because of the timeout (see SetInfoUpdateOptions).<br/>
+        /// The first parameter is false if the update failed and will not be retried,
+        /// the second one is the consent status (the last known one on failure).
+        /// Android only.
+        /// </summary>
+        /// <param name="Listener"></param>
+        [UsedImplicitly]
+        public static void SetOnConsentInfoUpdatedListener( Action<bool, ConsentStatus> Listener )
+        {
+            OnConsentInfoUpdated = Listener;
+        }
+
         private static bool                  IsInitializing;
         private static Action<ConsentStatus> OnInitialisationComplete;
         /// <summary>
@@ -609,8 +1542,7 @@ namespace com.binouze
             return false;
             #elif UNITY_ANDROID
 
-            using var cls = new AndroidJavaClass( AndroidClass );
-            return cls.CallStatic<bool>( "GetCanShowAds" );
+            return HasConsentFlag( ConsentFlags.CanShowAds );
 
             #elif UNITY_IOS
 
@@ -655,8 +1587,7 @@ namespace com.binouze
             return false;
             #elif UNITY_ANDROID
 
-            using var cls = new AndroidJavaClass( AndroidClass );
-            return cls.CallStatic<bool>( "GetCanShowPresonalizedAds" );
+            return HasConsentFlag( ConsentFlags.CanShowPersonalizedAds );
 
             #elif UNITY_IOS
 
@@ -686,16 +1617,22 @@ namespace com.binouze
                 return false;
 
             // check vendors consent
-            foreach( var id in vendorIds )
+            var ids     = vendorIds.ToArray();
+            var results = new bool[ids.Length];
+            GetConsentForVendors( ids, results );
+            foreach( var consent in results )
             {
-                if( !GetConsentForVendor( id ) )
+                if( !consent )
                     return false;
             }
             
             // check external consent
-            foreach( var id in externalIds )
+            ids     = externalIds.ToArray();
+            results = new bool[ids.Length];
+            GetConsentForAdditionals( ids, results );
+            foreach( var consent in results )
             {
-                if( !GetConsentForAdditional( id ) )
+                if( !consent )
                     return false;
             }
 
@@ -716,8 +1653,7 @@ namespace com.binouze
             return false;
             #elif UNITY_ANDROID
 
-            using var cls = new AndroidJavaClass( AndroidClass );
-            return cls.CallStatic<bool>( "GetGDPRRequired" );
+            return HasConsentFlag( ConsentFlags.GDPRApplies );
 
             #elif UNITY_IOS
 
@@ -740,8 +1676,7 @@ namespace com.binouze
             // nothing to do on editor
             #elif UNITY_ANDROID
             
-            using var cls = new AndroidJavaClass( AndroidClass );
-            return cls.CallStatic<bool>( "IsFormAvailable" );
+            return HasConsentFlag( ConsentFlags.FormAvailable );
             
             #elif UNITY_IOS
             
@@ -827,6 +1762,9 @@ namespace com.binouze
         {
             Log( $"OnFormDissmissedMessage {statusString}" );
             
+            // consent may have changed, next checks must ask the native plugin
+            InvalidateConsentFlags();
+
             var statusint = String2Int( statusString );
             var newConsentStatus = Enum.IsDefined( typeof(ConsentStatus), statusint ) ? (ConsentStatus)statusint : ConsentStatus.UNKNOWN;
 
@@ -842,6 +1780,66 @@ namespace com.binouze
             OnFormClosed = null;
         }
 
+        /// <summary>
+        /// here we receive the result of each consent info update: "1;status" when it succeeded,
+        /// "0;errorCode" when it failed for good (the retries were given up)
+        /// </summary>
+        /// <param name="message"></param>
+        [UsedImplicitly]
+        public void OnConsentInfoUpdatedMessage( string message )
+        {
+            Log( $"OnConsentInfoUpdatedMessage {message}" );
+
+            var separator = message.IndexOf( ';' );
+            if( separator < 0 )
+                return;
+
+            var success = message.Substring( 0, separator ) == "1";
+            var value   = String2Int( message.Substring( separator + 1 ) );
+
+            // consent may have changed, next checks must ask the native plugin
+            InvalidateConsentFlags();
+
+            var status = ConsentStatus;
+            if( success )
+            {
+                status = Enum.IsDefined( typeof(ConsentStatus), value ) ? (ConsentStatus)value : ConsentStatus.UNKNOWN;
+                if( !IsInitializing )
+                    ConsentStatus = status;
+            }
+
+            OnConsentInfoUpdated?.Invoke( success, status );
+        }
+
+        /// <summary>
+        /// here we receive the consent changes pushed by the native plugin: "changed;flags"
+        /// </summary>
+        /// <param name="message"></param>
+        [UsedImplicitly]
+        public void OnConsentChangedMessage( string message )
+        {
+            Log( $"OnConsentChangedMessage {message}" );
+
+            var separator = message.IndexOf( ';' );
+            if( separator < 0 )
+                return;
+
+            var changed = String2Long( message.Substring( 0, separator ) );
+            var flags   = String2Long( message.Substring( separator + 1 ) );
+
+            // the pushed flags are the most recent ones, no need to ask the native plugin again
+            var version = System.Threading.Interlocked.Increment( ref _consentFlagsVersion );
+            System.Threading.Volatile.Write( ref _packedConsentFlags, new PackedConsentFlags( flags, version ) );
+
+            if( !IsInitializing )
+            {
+                var statusint = (int)((flags >> StatusShift) & 0xFF);
+                ConsentStatus = Enum.IsDefined( typeof(ConsentStatus), statusint ) ? (ConsentStatus)statusint : ConsentStatus.UNKNOWN;
+            }
+
+            OnConsentChanged?.Invoke( (ConsentFlags)(changed & FlagsMask), (ConsentFlags)(flags & FlagsMask) );
+        }
+
         /// <summary>
         /// just keep a reference - not used
         /// </summary>
@@ -872,6 +1870,14 @@ namespace com.binouze
         
         
         
+        /// <summary>
+        /// get back a long from the string message
+        /// </summary>
+        private static long String2Long( string str, long defaut = 0 )
+        {
+            return long.TryParse( str, NumberStyles.Integer, CultureInfo.InvariantCulture, out var value ) ? value : defaut;
+        }
+
         /// <summary>
         /// get back an int from the string message
         /// </summary>
@@ -0,0 +1,60 @@
+package com.binouze
+
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.suspendCancellableCoroutine
+import kotlin.coroutines.resume
+
+/**
+ * Consent API for the native Kotlin modules (mediation adapters...), on top of the Java plugin:
+ * snapshot is the ConsentSnapshot decoded by GDRPHelper, the same one the Java and Unity getters read,
+ * initialize and loadForm run the flow of GoogleUserMessagingPlatform and resume with the consent status.
+ *
+ * <pre>
+ * ConsentFlow.snapshot.filterNotNull().collect { snapshot -> adapter.setConsent( snapshot.canShowPersonalizedAds ) }
+ * </pre>
+ */
+object ConsentFlow
+{
+    // never reads the consent preferences on the calling thread, null until they are decoded
+    private val state = MutableStateFlow( GDRPHelper.peekSnapshot() )
+
+    init
+    {
+        // the listener reads the current snapshot rather than its argument, a late call can not publish an older one
+        GDRPHelper.addSnapshotListener { state.value = GDRPHelper.getSnapshot() }
+        // decoded on the background thread if the prefetch did not complete, changed before the listener was added
+        ConsentExecutor.execute { state.value = GDRPHelper.getSnapshot() }
+    }
+
+    /**
+     * the current consent snapshot, null until the consent preferences are decoded,
+     * then a new value each time an IABTCF_* preference changes. conflated: a slow collector only gets the last one
+     */
+    @JvmStatic
+    val snapshot: StateFlow<ConsentSnapshot?> = state.asStateFlow()
+
+    /**
+     * GoogleUserMessagingPlatform.Initialize, resumes with the consent status reported for it
+     * (ConsentInformation.ConsentStatus), right away if it was already reported.
+     * cancelling the caller does not cancel the consent info update
+     */
+    suspend fun initialize(): Int = suspendCancellableCoroutine { continuation ->
+        val callback = GoogleUserMessagingPlatform.StatusCallback { status -> continuation.resume( status ) }
+        GoogleUserMessagingPlatform.Initialize( callback )
+        // removed after it was registered, both are posted to the UI thread
+        continuation.invokeOnCancellation { GoogleUserMessagingPlatform.RemoveStatusCallback( callback ) }
+    }
+
+    /**
+     * GoogleUserMessagingPlatform.LoadForm, resumes with the consent status once the form is loaded,
+     * or once it is dismissed if show is true. resumes right away if no form is available.
+     * cancelling the caller does not close a form on screen
+     */
+    suspend fun loadForm( show: Boolean = false ): Int = suspendCancellableCoroutine { continuation ->
+        val callback = GoogleUserMessagingPlatform.StatusCallback { status -> continuation.resume( status ) }
+        GoogleUserMessagingPlatform.LoadForm( show, callback )
+        continuation.invokeOnCancellation { GoogleUserMessagingPlatform.RemoveStatusCallback( callback ) }
+    }
+}